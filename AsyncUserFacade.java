@@ -0,0 +1,111 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.Profile;
+import com.thanhtam.backend.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking facade over {@link UserService} and {@link ProfileService}.
+ *
+ * Calls run on virtual threads when the JVM has them (Java 21+) and on a fixed platform pool
+ * otherwise. The caller's SecurityContext is carried onto the worker, so
+ * {@code getUserName()} behaves as on the request thread. A semaphore sized like the JDBC
+ * connection pool caps how many calls are inside the services at once, so thousands of cheap
+ * threads queue here instead of on the pool's connection timeout.
+ */
+@Service
+public class AsyncUserFacade {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncUserFacade.class);
+
+    private final UserService userService;
+    private final ProfileService profileService;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    @Autowired
+    public AsyncUserFacade(UserService userService, ProfileService profileService,
+                           @Value("${app.async.max-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}")
+                                   int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("app.async.max-concurrency must be positive");
+        }
+        this.userService = userService;
+        this.profileService = profileService;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.executor = new DelegatingSecurityContextExecutorService(newExecutor(maxConcurrency));
+    }
+
+    public CompletableFuture<User> createUser(User user) {
+        return submit(() -> userService.createUser(user));
+    }
+
+    public CompletableFuture<Optional<User>> getUserByUsername(String username) {
+        return submit(() -> userService.getUserByUsername(username));
+    }
+
+    public CompletableFuture<Void> updateUser(User user) {
+        return submit(() -> {
+            userService.updateUser(user);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Profile> createProfile(Profile profile) {
+        return submit(() -> profileService.createProfile(profile));
+    }
+
+    public CompletableFuture<List<Profile>> getAllProfiles() {
+        return submit(profileService::getAllProfiles);
+    }
+
+    public CompletableFuture<String> getUserName() {
+        return submit(userService::getUserName);
+    }
+
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                return call.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ExecutorService newExecutor(int fallbackThreads) {
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            logger.info("AsyncUserFacade running on virtual threads");
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            logger.info("Virtual threads not available, AsyncUserFacade using {} platform threads", fallbackThreads);
+            return Executors.newFixedThreadPool(fallbackThreads);
+        }
+    }
+}
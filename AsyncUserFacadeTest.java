@@ -0,0 +1,90 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.User;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+// Async calls run outside the test thread's transaction, so these tests only read.
+@SpringBootTest(properties = "app.warmup.enabled=false")
+@RunWith(SpringRunner.class)
+public class AsyncUserFacadeTest {
+
+    @Autowired
+    private AsyncUserFacade asyncUserFacade;
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    //TC01
+    @Test
+    public void getUserName_ShouldSeeCallerSecurityContext() throws Exception {
+        // Arrange
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("asyncUser", "password"));
+
+        // Act
+        String username = asyncUserFacade.getUserName().get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals("asyncUser", username);
+    }
+
+    //TC02
+    @Test
+    public void getUserByUsername_UserDoesNotExist_ShouldCompleteWithEmpty() throws Exception {
+        // Act
+        Optional<User> user = asyncUserFacade.getUserByUsername("nonexistent" + System.currentTimeMillis())
+                .get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertFalse(user.isPresent());
+    }
+
+    //TC03
+    @Test
+    public void getAllProfiles_ManyConcurrentCalls_ShouldAllCompleteAndReleasePermits() throws Exception {
+        // Arrange
+        int before = asyncUserFacade.availablePermits();
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 200; i++) {
+            futures.add(asyncUserFacade.getAllProfiles());
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        // Assert
+        for (CompletableFuture<?> future : futures) {
+            assertNotNull(future.get());
+        }
+        assertEquals(before, asyncUserFacade.availablePermits());
+    }
+
+    //TC04
+    @Test
+    public void updateUser_WithNullUser_ShouldCompleteExceptionally() throws Exception {
+        try {
+            asyncUserFacade.updateUser(null).get(5, TimeUnit.SECONDS);
+            fail("Expected an exception to be thrown");
+        } catch (ExecutionException e) {
+            assertNotNull(e.getCause());
+        }
+    }
+}
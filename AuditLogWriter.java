@@ -0,0 +1,203 @@
+package com.thanhtam.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves audit records from the in-memory ring buffer to the append-only
+ * {@code user_audit_log} table.
+ *
+ * A single daemon thread drains the buffer and writes each batch with one JDBC batch insert,
+ * so the request thread only pays for a CAS. A batch whose insert fails is kept and retried
+ * after {@code app.audit.retry-backoff-ms} before anything newer is drained, so a database
+ * outage delays records but does not lose them; meanwhile the buffer fills up and the
+ * configured {@link AuditOverflowPolicy} decides between waiting and dropping. This class
+ * only ever inserts; rows are never updated or deleted.
+ */
+@Component
+public class AuditLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final String INSERT_SQL = "INSERT INTO user_audit_log "
+            + "(user_id, profile_id, actor, action, field, old_value, new_value, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditRingBuffer<AuditRecord> buffer;
+    private final AuditOverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final long idleParkMs;
+    private final long blockTimeoutNanos;
+    private final long retryBackoffMs;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final Object writeLock = new Object();
+    // Rows of the last batch whose insert failed; guarded by writeLock.
+    private List<Object[]> pending = new ArrayList<>();
+    private volatile boolean running;
+    private volatile Thread thread;
+
+    @Autowired
+    public AuditLogWriter(JdbcTemplate jdbcTemplate,
+                          @Value("${app.audit.buffer-capacity:8192}") int capacity,
+                          @Value("${app.audit.overflow-policy:BLOCK}") AuditOverflowPolicy overflowPolicy,
+                          @Value("${app.audit.batch-size:256}") int batchSize,
+                          @Value("${app.audit.idle-park-ms:20}") long idleParkMs,
+                          @Value("${app.audit.block-timeout-ms:5000}") long blockTimeoutMs,
+                          @Value("${app.audit.retry-backoff-ms:1000}") long retryBackoffMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new AuditRingBuffer<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+        this.idleParkMs = idleParkMs;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = new Thread(this::loop, "audit-log-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+        flush();
+        int lost = getQueuedCount();
+        if (lost > 0) {
+            logger.error("Shutting down with {} audit records not written", lost);
+        }
+    }
+
+    /**
+     * Queues a record for writing.
+     *
+     * @return false if the record was dropped because the buffer was full; under
+     *         {@link AuditOverflowPolicy#BLOCK} only after it stayed full for
+     *         {@code app.audit.block-timeout-ms} or while the writer thread is not running
+     */
+    public boolean submit(AuditRecord record) {
+        if (overflowPolicy == AuditOverflowPolicy.DROP) {
+            if (!buffer.offer(record)) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            return true;
+        }
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        while (!buffer.offer(record)) {
+            if (!isWriterAlive()) {
+                return drop(record, "the audit log writer is not running");
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return drop(record, "still full after " + TimeUnit.NANOSECONDS.toMillis(blockTimeoutNanos) + " ms");
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+        return true;
+    }
+
+    private boolean drop(AuditRecord record, String reason) {
+        long total = dropped.incrementAndGet();
+        logger.error("Audit buffer is full, {}; dropped {} {} of user {} ({} dropped so far)",
+                reason, record.getAction(), record.getField(), record.getUserId(), total);
+        return false;
+    }
+
+    /**
+     * Writes everything queued so far before returning, or until an insert fails; failed rows
+     * stay queued for the writer thread to retry.
+     */
+    public void flush() {
+        while (writeBatch() > 0) {
+            // keep going until the buffer is empty
+        }
+    }
+
+    boolean isWriterAlive() {
+        Thread writer = thread;
+        return running && writer != null && writer.isAlive();
+    }
+
+    private void loop() {
+        while (running) {
+            if (writeBatch() == 0) {
+                long parkMs = hasPending() ? retryBackoffMs : idleParkMs;
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(parkMs));
+            }
+        }
+    }
+
+    private boolean hasPending() {
+        synchronized (writeLock) {
+            return !pending.isEmpty();
+        }
+    }
+
+    /** Writes the failed batch again, or else the next batch; returns the rows written. */
+    private int writeBatch() {
+        // The ring buffer allows one consumer at a time; flush() may race the writer thread.
+        synchronized (writeLock) {
+            if (pending.isEmpty()) {
+                final List<Object[]> rows = pending;
+                buffer.drain(batchSize, record -> rows.add(new Object[]{
+                        record.getUserId(), record.getProfileId(), record.getActor(), record.getAction(),
+                        record.getField(), record.getOldValue(), record.getNewValue(), record.getTimestamp()}));
+            }
+            int count = pending.size();
+            if (count == 0) {
+                return 0;
+            }
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, pending);
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                logger.error("Failed to write {} audit records, keeping them for a retry", count, e);
+                return 0;
+            }
+            pending = new ArrayList<>(batchSize);
+            written.addAndGet(count);
+            return count;
+        }
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /** Failed batch inserts so far; their rows were kept and retried. */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /** Records not written yet, including a batch waiting for its retry. */
+    public int getQueuedCount() {
+        synchronized (writeLock) {
+            return buffer.size() + pending.size();
+        }
+    }
+}
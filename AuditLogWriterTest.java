@@ -0,0 +1,143 @@
+package com.thanhtam.backend.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AuditLogWriterTest {
+
+    static class RecordingJdbcTemplate extends JdbcTemplate {
+        final List<Object[]> rows = new ArrayList<>();
+        volatile int failuresLeft;
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new DataAccessResourceFailureException("database down");
+            }
+            rows.addAll(batchArgs);
+            return new int[batchArgs.size()];
+        }
+    }
+
+    private RecordingJdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() {
+        jdbcTemplate = new RecordingJdbcTemplate();
+    }
+
+    private AuditLogWriter writer(int capacity, AuditOverflowPolicy policy, long blockTimeoutMs) {
+        return new AuditLogWriter(jdbcTemplate, capacity, policy, 2, 1, blockTimeoutMs, 10);
+    }
+
+    private static AuditRecord record(String field) {
+        return new AuditRecord(1L, null, "admin", AuditRecord.USER_UPDATED, field, "old", "new", 1000L);
+    }
+
+    //TC01
+    @Test
+    public void flush_ShouldWriteQueuedRecordsInBatchesInOrder() {
+        // Arrange
+        AuditLogWriter writer = writer(8, AuditOverflowPolicy.BLOCK, 100);
+        writer.submit(record("username"));
+        writer.submit(record("email"));
+        writer.submit(record("intake"));
+
+        // Act
+        writer.flush();
+
+        // Assert
+        assertEquals(3, jdbcTemplate.rows.size());
+        assertEquals("username", jdbcTemplate.rows.get(0)[4]);
+        assertEquals("intake", jdbcTemplate.rows.get(2)[4]);
+        assertEquals(3, writer.getWrittenCount());
+        assertEquals(0, writer.getQueuedCount());
+    }
+
+    //TC02
+    @Test
+    public void flush_InsertFails_ShouldKeepBatchAndWriteItOnRetry() {
+        // Arrange
+        AuditLogWriter writer = writer(8, AuditOverflowPolicy.BLOCK, 100);
+        writer.submit(record("username"));
+        writer.submit(record("email"));
+        jdbcTemplate.failuresLeft = 1;
+        writer.flush();
+        assertTrue(jdbcTemplate.rows.isEmpty());
+        assertEquals(2, writer.getQueuedCount());
+
+        // Act
+        writer.flush();
+
+        // Assert
+        assertEquals(2, jdbcTemplate.rows.size());
+        assertEquals("username", jdbcTemplate.rows.get(0)[4]);
+        assertEquals(1, writer.getFailedCount());
+        assertEquals(2, writer.getWrittenCount());
+        assertEquals(0, writer.getQueuedCount());
+    }
+
+    //TC03
+    @Test
+    public void submit_DropPolicyWhenFull_ShouldCountDroppedRecord() {
+        // Arrange
+        AuditLogWriter writer = writer(2, AuditOverflowPolicy.DROP, 100);
+        assertTrue(writer.submit(record("username")));
+        assertTrue(writer.submit(record("email")));
+
+        // Act
+        boolean accepted = writer.submit(record("intake"));
+
+        // Assert
+        assertFalse(accepted);
+        assertEquals(1, writer.getDroppedCount());
+    }
+
+    //TC04
+    @Test
+    public void submit_BlockPolicyWithoutWriterThread_ShouldDropWhenFull() {
+        // Arrange
+        AuditLogWriter writer = writer(2, AuditOverflowPolicy.BLOCK, 60_000);
+        writer.submit(record("username"));
+        writer.submit(record("email"));
+
+        // Act
+        boolean accepted = writer.submit(record("intake"));
+
+        // Assert
+        assertFalse(accepted);
+        assertEquals(1, writer.getDroppedCount());
+    }
+
+    //TC05
+    @Test
+    public void submit_BlockPolicyWhileDatabaseIsDown_ShouldDropAfterTimeout() throws InterruptedException {
+        // Arrange
+        AuditLogWriter writer = writer(2, AuditOverflowPolicy.BLOCK, 50);
+        jdbcTemplate.failuresLeft = Integer.MAX_VALUE;
+        writer.start();
+        int accepted = 0;
+        try {
+            // Act: at most one retried batch plus a full buffer fit, the fifth record cannot
+            for (int i = 0; i < 5; i++) {
+                if (writer.submit(record("field" + i))) {
+                    accepted++;
+                }
+            }
+        } finally {
+            writer.stop();
+        }
+
+        // Assert
+        assertTrue(accepted < 5);
+        assertEquals(5 - accepted, writer.getDroppedCount());
+    }
+}
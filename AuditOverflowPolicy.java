@@ -0,0 +1,14 @@
+package com.thanhtam.backend.service;
+
+/**
+ * What {@link AuditService} does when the audit ring buffer is full.
+ */
+public enum AuditOverflowPolicy {
+    /**
+     * Wait for the writer to make room; callers can stall up to {@code app.audit.block-timeout-ms},
+     * after which the record is dropped, counted and logged as an error.
+     */
+    BLOCK,
+    /** Drop the record and count it; callers never wait. */
+    DROP
+}
@@ -0,0 +1,65 @@
+package com.thanhtam.backend.service;
+
+/**
+ * One field-level change in the audit trail. Values are stored as strings; collections
+ * (roles) are rendered sorted so equal sets always produce equal text.
+ */
+public class AuditRecord {
+
+    public static final String USER_UPDATED = "USER_UPDATED";
+    public static final String ROLES_CHANGED = "ROLES_CHANGED";
+    public static final String PROFILE_CHANGED = "PROFILE_CHANGED";
+
+    private final Long userId;
+    private final Long profileId;
+    private final String actor;
+    private final String action;
+    private final String field;
+    private final String oldValue;
+    private final String newValue;
+    private final long timestamp;
+
+    public AuditRecord(Long userId, Long profileId, String actor, String action, String field,
+                       String oldValue, String newValue, long timestamp) {
+        this.userId = userId;
+        this.profileId = profileId;
+        this.actor = actor;
+        this.action = action;
+        this.field = field;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.timestamp = timestamp;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getProfileId() {
+        return profileId;
+    }
+
+    public String getActor() {
+        return actor;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getOldValue() {
+        return oldValue;
+    }
+
+    public String getNewValue() {
+        return newValue;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
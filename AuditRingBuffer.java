@@ -0,0 +1,83 @@
+package com.thanhtam.backend.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free ring buffer with many producers and a single consumer.
+ *
+ * Producers claim a sequence with a CAS on {@code tail} and then publish into the slot; a
+ * non-null slot means "published". The consumer clears each slot before advancing
+ * {@code head}, so a producer that sees {@code tail - head < capacity} always finds its slot
+ * empty.
+ */
+class AuditRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    AuditRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two >= 2");
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /** Adds {@code item} if there is room; never waits. */
+    boolean offer(T item) {
+        if (item == null) {
+            throw new IllegalArgumentException("item is required");
+        }
+        while (true) {
+            long seq = tail.get();
+            if (seq - head.get() > mask) {
+                return false;
+            }
+            if (tail.compareAndSet(seq, seq + 1)) {
+                slots.lazySet((int) (seq & mask), item);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Hands up to {@code max} published items, in sequence order, to {@code sink}.
+     * Must only be called from one thread at a time.
+     */
+    int drain(int max, Consumer<T> sink) {
+        long start = head.get();
+        long seq = start;
+        int drained = 0;
+        try {
+            while (drained < max) {
+                int index = (int) (seq & mask);
+                T item = slots.get(index);
+                if (item == null) {
+                    // Either empty or a producer has claimed the slot but not written it yet.
+                    break;
+                }
+                slots.lazySet(index, null);
+                seq++;
+                drained++;
+                sink.accept(item);
+            }
+        } finally {
+            if (seq != start) {
+                head.set(seq);
+            }
+        }
+        return drained;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
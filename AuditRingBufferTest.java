@@ -0,0 +1,113 @@
+package com.thanhtam.backend.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class AuditRingBufferTest {
+
+    //TC01
+    @Test
+    public void drain_ShouldReturnItemsInOfferOrder() {
+        // Arrange
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(8);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        List<Integer> drained = new ArrayList<>();
+
+        // Act
+        int count = buffer.drain(10, drained::add);
+
+        // Assert
+        assertEquals(5, count);
+        assertEquals(5, drained.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Integer.valueOf(i), drained.get(i));
+        }
+        assertEquals(0, buffer.size());
+    }
+
+    //TC02
+    @Test
+    public void offer_WhenFull_ShouldReturnFalseUntilDrained() {
+        // Arrange
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+
+        // Act & Assert
+        assertFalse(buffer.offer(99));
+        assertEquals(1, buffer.drain(1, item -> { }));
+        assertTrue(buffer.offer(99));
+    }
+
+    //TC03
+    @Test
+    public void drain_ShouldRespectMax() {
+        // Arrange
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(8);
+        for (int i = 0; i < 6; i++) {
+            buffer.offer(i);
+        }
+
+        // Act & Assert
+        assertEquals(4, buffer.drain(4, item -> { }));
+        assertEquals(2, buffer.size());
+    }
+
+    //TC04
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_NonPowerOfTwo_ShouldThrow() {
+        new AuditRingBuffer<Integer>(10);
+    }
+
+    //TC05
+    @Test
+    public void offer_ManyProducers_ShouldDeliverEveryItemExactlyOnce() throws Exception {
+        // Arrange
+        final AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(64);
+        final int producers = 4;
+        final int perProducer = 20_000;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int base = p * perProducer;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        final Set<Integer> seen = new HashSet<>();
+
+        // Act
+        start.countDown();
+        while (seen.size() < producers * perProducer) {
+            buffer.drain(128, item -> assertTrue("duplicate " + item, seen.add(item)));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Assert
+        assertEquals(producers * perProducer, seen.size());
+        assertEquals(0, buffer.size());
+    }
+}
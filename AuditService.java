@@ -0,0 +1,158 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.Intake;
+import com.thanhtam.backend.entity.Profile;
+import com.thanhtam.backend.entity.Role;
+import com.thanhtam.backend.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Captures field-level diffs of users and profiles and reads the audit trail back.
+ *
+ * Callers pass a detached copy of the entity as it was before the change; only fields whose
+ * value differs produce a record. Records go through {@link AuditLogWriter}, so recording
+ * does not add a database round trip to {@code updateUser} or {@code createProfile}.
+ */
+@Service
+public class AuditService {
+
+    private static final String SELECT_BY_USER_SQL = "SELECT user_id, profile_id, actor, action, field, "
+            + "old_value, new_value, created_at FROM user_audit_log "
+            + "WHERE user_id = ? AND created_at >= ? AND created_at < ? ORDER BY created_at, id";
+
+    private final AuditLogWriter auditLogWriter;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public AuditService(AuditLogWriter auditLogWriter, JdbcTemplate jdbcTemplate) {
+        this.auditLogWriter = auditLogWriter;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Records every changed user field, including roles, intake and the linked profile id.
+     *
+     * @return number of field changes recorded
+     */
+    public int recordUserUpdate(User before, User after) {
+        if (after == null) {
+            throw new IllegalArgumentException("after is required");
+        }
+        Long userId = after.getId();
+        Long profileId = after.getProfile() == null ? null : after.getProfile().getId();
+        List<AuditRecord> records = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        String actor = currentActor();
+        User old = before == null ? new User() : before;
+
+        addIfChanged(records, userId, profileId, actor, AuditRecord.USER_UPDATED, "username",
+                old.getUsername(), after.getUsername(), now);
+        addIfChanged(records, userId, profileId, actor, AuditRecord.USER_UPDATED, "email",
+                old.getEmail(), after.getEmail(), now);
+        addIfChanged(records, userId, profileId, actor, AuditRecord.USER_UPDATED, "intake",
+                intakeCode(old.getIntake()), intakeCode(after.getIntake()), now);
+        addIfChanged(records, userId, profileId, actor, AuditRecord.USER_UPDATED, "profileId",
+                old.getProfile() == null ? null : String.valueOf(old.getProfile().getId()),
+                profileId == null ? null : String.valueOf(profileId), now);
+        if (before != null && !Objects.equals(before.getPassword(), after.getPassword())) {
+            // Never store hashes in the audit trail, only the fact that the password changed.
+            records.add(new AuditRecord(userId, profileId, actor, AuditRecord.USER_UPDATED, "password",
+                    null, null, now));
+        }
+        addIfChanged(records, userId, profileId, actor, AuditRecord.ROLES_CHANGED, "roles",
+                roleNames(old.getRoles()), roleNames(after.getRoles()), now);
+        return submitAll(records);
+    }
+
+    /**
+     * Records a role change done outside {@link #recordUserUpdate}, e.g. bulk assignment.
+     */
+    public int recordRoleChange(Long userId, Collection<Role> before, Collection<Role> after) {
+        List<AuditRecord> records = new ArrayList<>();
+        addIfChanged(records, userId, null, currentActor(), AuditRecord.ROLES_CHANGED, "roles",
+                roleNames(before), roleNames(after), System.currentTimeMillis());
+        return submitAll(records);
+    }
+
+    /**
+     * Records every changed profile field. {@code userId} may be null when the owner is unknown.
+     */
+    public int recordProfileChange(Long userId, Profile before, Profile after) {
+        if (after == null) {
+            throw new IllegalArgumentException("after is required");
+        }
+        Profile old = before == null ? new Profile() : before;
+        List<AuditRecord> records = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        String actor = currentActor();
+        Long profileId = after.getId();
+        addIfChanged(records, userId, profileId, actor, AuditRecord.PROFILE_CHANGED, "firstName",
+                old.getFirstName(), after.getFirstName(), now);
+        addIfChanged(records, userId, profileId, actor, AuditRecord.PROFILE_CHANGED, "lastName",
+                old.getLastName(), after.getLastName(), now);
+        addIfChanged(records, userId, profileId, actor, AuditRecord.PROFILE_CHANGED, "image",
+                old.getImage(), after.getImage(), now);
+        return submitAll(records);
+    }
+
+    /**
+     * Audit trail of one user in {@code [fromMillis, toMillis)}, oldest first. Records still
+     * queued in memory are written first so the result includes them.
+     */
+    public List<AuditRecord> findByUser(Long userId, long fromMillis, long toMillis) {
+        auditLogWriter.flush();
+        return jdbcTemplate.query(SELECT_BY_USER_SQL, (rs, rowNum) -> new AuditRecord(
+                rs.getLong("user_id"),
+                rs.getObject("profile_id", Long.class),
+                rs.getString("actor"),
+                rs.getString("action"),
+                rs.getString("field"),
+                rs.getString("old_value"),
+                rs.getString("new_value"),
+                rs.getLong("created_at")), userId, fromMillis, toMillis);
+    }
+
+    private int submitAll(List<AuditRecord> records) {
+        for (AuditRecord record : records) {
+            auditLogWriter.submit(record);
+        }
+        return records.size();
+    }
+
+    private static void addIfChanged(List<AuditRecord> records, Long userId, Long profileId, String actor,
+                                     String action, String field, String oldValue, String newValue, long now) {
+        if (!Objects.equals(oldValue, newValue)) {
+            records.add(new AuditRecord(userId, profileId, actor, action, field, oldValue, newValue, now));
+        }
+    }
+
+    private static String intakeCode(Intake intake) {
+        return intake == null ? null : intake.getIntakeCode();
+    }
+
+    private static String roleNames(Collection<Role> roles) {
+        if (roles == null || roles.isEmpty()) {
+            return null;
+        }
+        TreeSet<String> names = new TreeSet<>();
+        for (Role role : roles) {
+            names.add(String.valueOf(role.getName()));
+        }
+        return String.join(",", names);
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+}
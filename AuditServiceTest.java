@@ -0,0 +1,149 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.Profile;
+import com.thanhtam.backend.entity.Role;
+import com.thanhtam.backend.entity.User;
+import com.thanhtam.backend.ultilities.ERole;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+@SpringBootTest(properties = "app.warmup.enabled=false")
+@RunWith(SpringRunner.class)
+public class AuditServiceTest {
+
+    // Audit rows are written by the writer thread outside any test transaction, so every test
+    // works on user ids of its own.
+    private static final AtomicLong NEXT_USER_ID = new AtomicLong(-System.currentTimeMillis());
+
+    @Autowired
+    private AuditService auditService;
+
+    private Long userId;
+
+    @Before
+    public void setUp() {
+        userId = NEXT_USER_ID.decrementAndGet();
+    }
+
+    private User user(String username, String email, String password) {
+        User user = new User();
+        user.setId(userId);
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPassword(password);
+        return user;
+    }
+
+    private List<AuditRecord> trail() {
+        return auditService.findByUser(userId, 0, Long.MAX_VALUE);
+    }
+
+    //TC01
+    @Test
+    public void recordUserUpdate_ShouldRecordOnlyChangedFields() {
+        // Arrange
+        User before = user("auditee", "old@example.com", "hash1");
+        User after = user("auditee", "new@example.com", "hash2");
+
+        // Act
+        int recorded = auditService.recordUserUpdate(before, after);
+
+        // Assert
+        assertEquals(2, recorded);
+        List<AuditRecord> trail = trail();
+        assertEquals(2, trail.size());
+        assertEquals("email", trail.get(0).getField());
+        assertEquals("old@example.com", trail.get(0).getOldValue());
+        assertEquals("new@example.com", trail.get(0).getNewValue());
+        assertEquals("password", trail.get(1).getField());
+        assertNull(trail.get(1).getOldValue());
+        assertNull(trail.get(1).getNewValue());
+    }
+
+    //TC02
+    @Test
+    public void recordUserUpdate_NothingChanged_ShouldRecordNothing() {
+        // Act
+        int recorded = auditService.recordUserUpdate(user("same", "same@example.com", "hash"),
+                user("same", "same@example.com", "hash"));
+
+        // Assert
+        assertEquals(0, recorded);
+        assertTrue(trail().isEmpty());
+    }
+
+    //TC03
+    @Test
+    public void recordRoleChange_ShouldStoreSortedRoleNames() {
+        // Arrange
+        Role student = new Role(1L, ERole.ROLE_STUDENT);
+        Role lecturer = new Role(2L, ERole.ROLE_LECTURER);
+
+        // Act
+        auditService.recordRoleChange(userId, Collections.singleton(student),
+                new HashSet<>(Arrays.asList(student, lecturer)));
+
+        // Assert
+        List<AuditRecord> trail = trail();
+        assertEquals(1, trail.size());
+        assertEquals(AuditRecord.ROLES_CHANGED, trail.get(0).getAction());
+        assertEquals("ROLE_STUDENT", trail.get(0).getOldValue());
+        assertEquals("ROLE_LECTURER,ROLE_STUDENT", trail.get(0).getNewValue());
+    }
+
+    //TC04
+    @Test
+    public void recordProfileChange_ShouldRecordChangedNameOnly() {
+        // Arrange
+        Profile before = new Profile();
+        before.setId(7L);
+        before.setFirstName("Tam");
+        before.setLastName("Nguyen");
+        Profile after = new Profile();
+        after.setId(7L);
+        after.setFirstName("Thanh");
+        after.setLastName("Nguyen");
+
+        // Act
+        auditService.recordProfileChange(userId, before, after);
+
+        // Assert
+        List<AuditRecord> trail = trail();
+        assertEquals(1, trail.size());
+        assertEquals(AuditRecord.PROFILE_CHANGED, trail.get(0).getAction());
+        assertEquals("firstName", trail.get(0).getField());
+        assertEquals(Long.valueOf(7L), trail.get(0).getProfileId());
+    }
+
+    //TC05
+    @Test
+    public void findByUser_ShouldOnlyReturnRecordsInRangeOfThatUser() {
+        // Arrange
+        long now = System.currentTimeMillis();
+        auditService.recordUserUpdate(user("a", "a@example.com", "hash"), user("b", "a@example.com", "hash"));
+        Long otherUserId = NEXT_USER_ID.decrementAndGet();
+        auditService.recordRoleChange(otherUserId, null, Collections.singleton(new Role(1L, ERole.ROLE_STUDENT)));
+
+        // Act
+        List<AuditRecord> inRange = auditService.findByUser(userId, now - 60_000, now + 60_000);
+        List<AuditRecord> later = auditService.findByUser(userId, now + 60_000, Long.MAX_VALUE);
+
+        // Assert
+        assertEquals(1, inRange.size());
+        assertEquals(userId, inRange.get(0).getUserId());
+        assertEquals("username", inRange.get(0).getField());
+        assertTrue(later.isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package com.thanhtam.backend.service;
+
+/**
+ * Single byte range from an HTTP {@code Range} header, resolved against a known length.
+ * Multi-range requests are not supported; callers answer them with the full body, which
+ * RFC 7233 allows.
+ */
+public final class ByteRange {
+
+    private final long start;
+    private final long end;
+
+    private ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parses {@code bytes=a-b}, {@code bytes=a-} and {@code bytes=-n}.
+     *
+     * @return the range, {@code null} if the header is absent or should be ignored
+     * @throws IllegalArgumentException if the range cannot be satisfied (answer 416)
+     */
+    public static ByteRange parse(String header, long length) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    throw new IllegalArgumentException("Unsatisfiable range " + header);
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                if (start >= length) {
+                    throw new IllegalArgumentException("Unsatisfiable range " + header);
+                }
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+                if (end < start) {
+                    return null;
+                }
+            }
+            if (length == 0) {
+                throw new IllegalArgumentException("Unsatisfiable range " + header);
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    public String toContentRange(long total) {
+        return "bytes " + start + "-" + end + "/" + total;
+    }
+}
@@ -0,0 +1,61 @@
+package com.thanhtam.backend.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ByteRangeTest {
+
+    //TC01
+    @Test
+    public void parse_ClosedRange_ShouldReturnBounds() {
+        ByteRange range = ByteRange.parse("bytes=0-99", 1000);
+
+        assertNotNull(range);
+        assertEquals(0, range.getStart());
+        assertEquals(99, range.getEnd());
+        assertEquals(100, range.getLength());
+        assertEquals("bytes 0-99/1000", range.toContentRange(1000));
+    }
+
+    //TC02
+    @Test
+    public void parse_OpenEndedRange_ShouldRunToEnd() {
+        ByteRange range = ByteRange.parse("bytes=900-", 1000);
+
+        assertEquals(900, range.getStart());
+        assertEquals(999, range.getEnd());
+    }
+
+    //TC03
+    @Test
+    public void parse_SuffixRange_ShouldReturnLastBytes() {
+        ByteRange range = ByteRange.parse("bytes=-100", 1000);
+
+        assertEquals(900, range.getStart());
+        assertEquals(999, range.getEnd());
+    }
+
+    //TC04
+    @Test
+    public void parse_EndBeyondLength_ShouldBeClamped() {
+        ByteRange range = ByteRange.parse("bytes=500-5000", 1000);
+
+        assertEquals(999, range.getEnd());
+    }
+
+    //TC05
+    @Test
+    public void parse_MissingOrMultiRange_ShouldReturnNull() {
+        assertNull(ByteRange.parse(null, 1000));
+        assertNull(ByteRange.parse("bytes=0-1,5-6", 1000));
+        assertNull(ByteRange.parse("items=0-1", 1000));
+        assertNull(ByteRange.parse("bytes=abc-", 1000));
+    }
+
+    //TC06
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_StartBeyondLength_ShouldBeUnsatisfiable() {
+        ByteRange.parse("bytes=1000-", 1000);
+    }
+}
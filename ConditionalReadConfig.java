@@ -0,0 +1,22 @@
+package com.thanhtam.backend.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class ConditionalReadConfig implements WebMvcConfigurer {
+
+    private final ConditionalReadInterceptor conditionalReadInterceptor;
+
+    @Autowired
+    public ConditionalReadConfig(ConditionalReadInterceptor conditionalReadInterceptor) {
+        this.conditionalReadInterceptor = conditionalReadInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(conditionalReadInterceptor);
+    }
+}
@@ -0,0 +1,109 @@
+package com.thanhtam.backend.controller;
+
+import com.thanhtam.backend.service.EntityTagCache;
+import com.thanhtam.backend.service.ProfileAccess;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Conditional GETs for the current-user and profile resources.
+ *
+ * Before the controller runs, the entity tag comes from {@link EntityTagCache} and is set on
+ * the response; a matching {@code If-None-Match} is answered with 304 right here, so neither
+ * the lookup nor the JSON serialization happens. That only happens for callers allowed to
+ * read the resource: the current user always reads their own, a profile needs the
+ * owner-or-admin rule of {@link ProfileAccess}. Ownership comes from the cached current-user
+ * entry, which holds the linked profile id, so a repeated poll costs no query at all. Other
+ * requests, and resources without a tag, go to the controller, which authorizes them and
+ * answers 403 or 404 as usual. A change committed between the tag lookup and the
+ * controller's read at worst sends fresh data under the old tag, which only costs the client
+ * one more full response.
+ */
+@Component
+public class ConditionalReadInterceptor implements HandlerInterceptor {
+
+    private final EntityTagCache entityTagCache;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final String currentUserPath;
+    private final String profilePath;
+
+    @Autowired
+    public ConditionalReadInterceptor(EntityTagCache entityTagCache,
+                                      @Value("${app.etag.current-user-path:/api/users/profile}") String currentUserPath,
+                                      @Value("${app.etag.profile-path:/api/profiles/{id}}") String profilePath) {
+        this.entityTagCache = entityTagCache;
+        this.currentUserPath = currentUserPath;
+        this.profilePath = profilePath;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        String tag = tagFor(request.getServletPath());
+        if (tag == null) {
+            return true;
+        }
+        String etag = "W/\"" + tag + "\"";
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", "private, no-cache");
+        if (matches(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        return true;
+    }
+
+    private String tagFor(String path) {
+        boolean currentUser = pathMatcher.match(currentUserPath, path);
+        if (!currentUser && !pathMatcher.match(profilePath, path)) {
+            return null;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        if (currentUser) {
+            return entityTagCache.currentUserTag(authentication.getName());
+        }
+        Long profileId;
+        try {
+            profileId = Long.valueOf(pathMatcher.extractUriTemplateVariables(profilePath, path).get("id"));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        boolean allowed = ProfileAccess.isAdmin(authentication)
+                || profileId.equals(entityTagCache.currentProfileId(authentication.getName()));
+        return allowed ? entityTagCache.profileTag(profileId) : null;
+    }
+
+    /** Weak comparison, as RFC 7232 requires for If-None-Match. */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if ("*".equals(value) || opaque.equals(opaque(value))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -0,0 +1,165 @@
+package com.thanhtam.backend.controller;
+
+import com.thanhtam.backend.entity.Profile;
+import com.thanhtam.backend.entity.User;
+import com.thanhtam.backend.repository.ProfileRepository;
+import com.thanhtam.backend.repository.UserRepository;
+import com.thanhtam.backend.service.EntityTagCache;
+import com.thanhtam.backend.ultilities.ERole;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+@SpringBootTest(properties = "app.warmup.enabled=false")
+@RunWith(SpringRunner.class)
+@Transactional
+public class ConditionalReadInterceptorTest {
+
+    private static final String OWNER = "etag-owner";
+
+    @Autowired
+    private ConditionalReadInterceptor conditionalReadInterceptor;
+    @Autowired
+    private EntityTagCache entityTagCache;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProfileRepository profileRepository;
+
+    private Profile ownProfile;
+    private Profile otherProfile;
+
+    @Before
+    public void setUp() {
+        ownProfile = profileRepository.saveAndFlush(new Profile());
+        otherProfile = profileRepository.saveAndFlush(new Profile());
+        User owner = new User();
+        owner.setUsername(OWNER);
+        owner.setEmail(OWNER + "@example.com");
+        owner.setPassword("password");
+        owner.setDeleted(false);
+        owner.setRoles(new HashSet<>());
+        owner.setProfile(ownProfile);
+        userRepository.saveAndFlush(owner);
+        signIn(new UsernamePasswordAuthenticationToken(OWNER, null, Collections.emptyList()));
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void signIn(Authentication authentication) {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    private MockHttpServletResponse get(String path, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean proceed = conditionalReadInterceptor.preHandle(request, response, new Object());
+        assertEquals(proceed, response.getStatus() != 304);
+        return response;
+    }
+
+    //TC01
+    @Test
+    public void preHandle_CurrentUserWithMatchingTag_ShouldAnswer304() {
+        // Arrange
+        String etag = get("/api/users/profile", null).getHeader("ETag");
+
+        // Act
+        MockHttpServletResponse response = get("/api/users/profile", etag);
+
+        // Assert
+        assertEquals("W/\"" + entityTagCache.currentUserTag(OWNER) + "\"", etag);
+        assertEquals(304, response.getStatus());
+        assertEquals(etag, response.getHeader("ETag"));
+    }
+
+    //TC02
+    @Test
+    public void preHandle_OwnProfileWithMatchingTag_ShouldAnswer304() {
+        // Arrange
+        String path = "/api/profiles/" + ownProfile.getId();
+        String etag = get(path, null).getHeader("ETag");
+
+        // Act
+        MockHttpServletResponse response = get(path, etag);
+
+        // Assert
+        assertNotNull(etag);
+        assertEquals(304, response.getStatus());
+    }
+
+    //TC03
+    @Test
+    public void preHandle_OtherUsersProfile_ShouldLeaveItToTheController() {
+        // Act
+        MockHttpServletResponse response = get("/api/profiles/" + otherProfile.getId(), "*");
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("ETag"));
+    }
+
+    //TC04
+    @Test
+    public void preHandle_AdminReadingAnyProfile_ShouldGetTag() {
+        // Arrange
+        signIn(new UsernamePasswordAuthenticationToken("etag-admin", null,
+                Collections.singletonList(new SimpleGrantedAuthority(ERole.ROLE_ADMIN.name()))));
+
+        // Act
+        MockHttpServletResponse response = get("/api/profiles/" + otherProfile.getId(), null);
+
+        // Assert
+        assertEquals("W/\"" + entityTagCache.profileTag(otherProfile.getId()) + "\"", response.getHeader("ETag"));
+    }
+
+    //TC05
+    @Test
+    public void preHandle_Anonymous_ShouldNotTagOrAnswer304() {
+        // Arrange
+        signIn(new AnonymousAuthenticationToken("key", "anonymousUser",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_ANONYMOUS"))));
+
+        // Act
+        MockHttpServletResponse response = get("/api/profiles/" + ownProfile.getId(), "*");
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("ETag"));
+    }
+
+    //TC06
+    @Test
+    public void matches_ShouldCompareWeakly() {
+        assertTrue(ConditionalReadInterceptor.matches("W/\"a1\"", "W/\"a1\""));
+        assertTrue(ConditionalReadInterceptor.matches("\"a1\"", "W/\"a1\""));
+        assertTrue(ConditionalReadInterceptor.matches("\"x\", W/\"a1\"", "W/\"a1\""));
+        assertTrue(ConditionalReadInterceptor.matches("*", "W/\"a1\""));
+        assertFalse(ConditionalReadInterceptor.matches("W/\"a2\"", "W/\"a1\""));
+        assertFalse(ConditionalReadInterceptor.matches(null, "W/\"a1\""));
+    }
+}
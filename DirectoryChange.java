@@ -0,0 +1,48 @@
+package com.thanhtam.backend.service;
+
+/**
+ * Latest change of one user or profile in the change feed. {@code data} holds the current
+ * entity, or null when it was soft deleted or no longer exists.
+ */
+public class DirectoryChange {
+
+    public static final String TYPE_USER = "USER";
+    public static final String TYPE_PROFILE = "PROFILE";
+
+    private final String type;
+    private final Long id;
+    private final long seq;
+    private final boolean deleted;
+    private Object data;
+
+    public DirectoryChange(String type, Long id, long seq, boolean deleted) {
+        this.type = type;
+        this.id = id;
+        this.seq = seq;
+        this.deleted = deleted;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public Object getData() {
+        return data;
+    }
+
+    public void setData(Object data) {
+        this.data = data;
+    }
+}
@@ -0,0 +1,37 @@
+package com.thanhtam.backend.controller;
+
+import com.thanhtam.backend.service.DirectoryChangeFeed;
+import com.thanhtam.backend.service.DirectoryChangePage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Delta sync for users and profiles. Clients read {@code /cursor}, download the full lists
+ * once, then poll {@code /api/changes?since=<cursor>} and follow {@code nextCursor} while
+ * {@code hasMore} is set.
+ */
+@RestController
+@RequestMapping("/api/changes")
+public class DirectoryChangeController {
+
+    private final DirectoryChangeFeed directoryChangeFeed;
+
+    @Autowired
+    public DirectoryChangeController(DirectoryChangeFeed directoryChangeFeed) {
+        this.directoryChangeFeed = directoryChangeFeed;
+    }
+
+    @GetMapping
+    public DirectoryChangePage getChanges(@RequestParam(defaultValue = "0") long since,
+                                          @RequestParam(defaultValue = "500") int limit) {
+        return directoryChangeFeed.changesSince(since, limit);
+    }
+
+    @GetMapping("/cursor")
+    public long getCursor() {
+        return directoryChangeFeed.currentCursor();
+    }
+}
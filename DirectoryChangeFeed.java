@@ -0,0 +1,340 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.Profile;
+import com.thanhtam.backend.entity.User;
+import com.thanhtam.backend.repository.ProfileRepository;
+import com.thanhtam.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Change feed over users and profiles.
+ *
+ * Every user or profile write appends a row to {@code directory_change} in the transaction
+ * that makes it: Hibernate writes through {@link DirectoryChangeListener}, bulk statements
+ * and restores through their {@link UsersChangedEvent} and {@link ProfilesChangedEvent},
+ * which are recorded set-based, one {@code INSERT ... SELECT} per chunk of ids. A change is
+ * therefore recorded exactly when the write commits, whatever happens afterwards.
+ *
+ * Committed rows get their {@code seq} from {@link #sequence()}, which numbers them in one
+ * transaction at a time under the lock of the {@code directory_change_counter} row, so a
+ * higher sequence is never visible before a lower one and a cursor never skips a change.
+ * Sequencing runs right after each commit and on a schedule, which picks up whatever the
+ * first attempt missed; a failure there is logged and never reaches the writer. Each change
+ * is announced with a {@link DirectoryChangedEvent} right after the local commit, before
+ * sequencing is attempted, and again once it is sequenced, which is how changes committed
+ * through other instances reach this one.
+ *
+ * {@link #changesSince} returns each changed entity once, at its latest sequence, with soft
+ * deletes flagged. Clients do one full download, starting from the {@link #currentCursor()}
+ * read before it, and then only pull pages of changes. Superseded rows are compacted away.
+ */
+@Service
+public class DirectoryChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryChangeFeed.class);
+
+    private static final String USERS_TABLE = "users";
+    private static final String PROFILE_TABLE = "profile";
+
+    static final String INSERT_SQL = "INSERT INTO directory_change "
+            + "(entity_type, entity_id, deleted, changed_at) VALUES (?, ?, ?, ?)";
+    private static final String LOCK_COUNTER_SQL = "SELECT next_seq FROM directory_change_counter "
+            + "WHERE id = 1 FOR UPDATE";
+    private static final String UNSEQUENCED_SQL = "SELECT id, entity_type, entity_id, deleted FROM directory_change "
+            + "WHERE seq IS NULL ORDER BY id LIMIT ?";
+    private static final String ASSIGN_SQL = "UPDATE directory_change SET seq = ? WHERE id = ?";
+    private static final String ADVANCE_COUNTER_SQL = "UPDATE directory_change_counter SET next_seq = ? WHERE id = 1";
+    private static final String SINCE_SQL = "SELECT c.entity_type, c.entity_id, c.seq, c.deleted "
+            + "FROM directory_change c WHERE c.seq > ? AND c.seq = ("
+            + "SELECT MAX(m.seq) FROM directory_change m "
+            + "WHERE m.entity_type = c.entity_type AND m.entity_id = c.entity_id) "
+            + "ORDER BY c.seq LIMIT ?";
+    private static final String COMPACT_SQL = "DELETE FROM directory_change WHERE id IN ("
+            + "SELECT id FROM (SELECT DISTINCT c.id FROM directory_change c JOIN directory_change n "
+            + "ON n.entity_type = c.entity_type AND n.entity_id = c.entity_id AND n.id > c.id "
+            + "LIMIT ?) superseded)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate requiresNew;
+    private final UserRepository userRepository;
+    private final ProfileRepository profileRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicBoolean sequencing = new AtomicBoolean();
+    private final AtomicBoolean sequenceRequested = new AtomicBoolean();
+    // Bound to a transaction once it has registered its sequencing: the changes it recorded, by type and id.
+    private final Object committedKey = new Object();
+
+    @Value("${app.changefeed.max-page-size:1000}")
+    private int maxPageSize = 1000;
+
+    @Value("${app.changefeed.compact-batch-size:5000}")
+    private int compactBatchSize = 5000;
+
+    @Value("${app.changefeed.sequence-batch-size:1000}")
+    private int sequenceBatchSize = 1000;
+
+    @Value("${app.changefeed.record-chunk-size:500}")
+    private int recordChunkSize = 500;
+
+    @Autowired
+    public DirectoryChangeFeed(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               UserRepository userRepository, ProfileRepository profileRepository,
+                               ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.userRepository = userRepository;
+        this.profileRepository = profileRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener
+    public void onUsersChanged(UsersChangedEvent event) {
+        recordAll(DirectoryChange.TYPE_USER, USERS_TABLE, "e.deleted", event.getUserIds());
+    }
+
+    @EventListener
+    public void onProfilesChanged(ProfilesChangedEvent event) {
+        recordAll(DirectoryChange.TYPE_PROFILE, PROFILE_TABLE, "FALSE", event.getProfileIds());
+    }
+
+    /**
+     * Appends one change per id, reading the deleted flag from {@code table} in the same
+     * statement; ids no longer in the table are recorded as deleted.
+     */
+    private void recordAll(String type, String table, String deletedExpression, Collection<Long> ids) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.remove(null);
+        if (distinct.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO directory_change (entity_type, entity_id, deleted, changed_at) "
+                + "SELECT :type, e.id, " + deletedExpression + ", :now FROM " + table + " e WHERE e.id IN (:ids)";
+        long now = System.currentTimeMillis();
+        for (int from = 0; from < distinct.size(); from += recordChunkSize) {
+            List<Long> chunk = distinct.subList(from, Math.min(distinct.size(), from + recordChunkSize));
+            Map<String, Object> params = new HashMap<>();
+            params.put("type", type);
+            params.put("now", now);
+            params.put("ids", chunk);
+            int recorded = namedJdbcTemplate.update(sql, params);
+            if (recorded < chunk.size()) {
+                Set<Long> missing = new LinkedHashSet<>(chunk);
+                missing.removeAll(namedJdbcTemplate.queryForList(
+                        "SELECT id FROM " + table + " WHERE id IN (:ids)", params, Long.class));
+                List<Object[]> rows = new ArrayList<>();
+                for (Long id : missing) {
+                    rows.add(new Object[]{type, id, true, now});
+                }
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            }
+        }
+        afterCommit(type, distinct);
+    }
+
+    /**
+     * Appends a change in the current transaction, so it is rolled back with it, or right
+     * away outside one.
+     */
+    void record(String type, Long id, boolean deleted) {
+        if (id == null) {
+            throw new IllegalArgumentException("Cannot record a change of an unsaved " + type + " entity");
+        }
+        jdbcTemplate.update(INSERT_SQL, type, id, deleted, System.currentTimeMillis());
+        afterCommit(type, Collections.singletonList(id));
+    }
+
+    /**
+     * Once the current transaction commits, or right away outside one, announces the changed
+     * entities with a {@link DirectoryChangedEvent} and then sequences. However many changes a
+     * transaction records, it registers one synchronization. The announcement does not wait
+     * for sequencing, so local caches drop stale entries even when sequencing fails; those
+     * failures are only logged, the rows are committed and the scheduled {@link #sequence()}
+     * retries them.
+     */
+    void afterCommit(String type, Collection<Long> ids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            for (Long id : ids) {
+                eventPublisher.publishEvent(new DirectoryChangedEvent(type, id));
+            }
+            sequenceQuietly();
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, DirectoryChangedEvent> committed =
+                (Map<String, DirectoryChangedEvent>) TransactionSynchronizationManager.getResource(committedKey);
+        if (committed == null) {
+            Map<String, DirectoryChangedEvent> changes = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(committedKey, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    for (DirectoryChangedEvent event : changes.values()) {
+                        eventPublisher.publishEvent(event);
+                    }
+                    sequenceQuietly();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(committedKey);
+                }
+            });
+            committed = changes;
+        }
+        for (Long id : ids) {
+            committed.putIfAbsent(type + ":" + id, new DirectoryChangedEvent(type, id));
+        }
+    }
+
+    private void sequenceQuietly() {
+        sequenceRequested.set(true);
+        // One thread per instance sequences; requests arriving meanwhile are folded into its next pass.
+        while (sequenceRequested.get() && sequencing.compareAndSet(false, true)) {
+            try {
+                sequenceRequested.set(false);
+                sequence();
+            } catch (RuntimeException e) {
+                logger.warn("Could not sequence directory changes, the scheduled run will retry", e);
+                return;
+            } finally {
+                sequencing.set(false);
+            }
+        }
+    }
+
+    /**
+     * Gives committed changes without a sequence the next ones, in insertion order.
+     *
+     * @return the number of changes sequenced
+     */
+    @Scheduled(fixedDelayString = "${app.changefeed.sequence-interval-ms:1000}")
+    public int sequence() {
+        int total = 0;
+        List<DirectoryChange> sequenced;
+        do {
+            sequenced = requiresNew.execute(status -> sequenceBatch());
+            for (DirectoryChange change : sequenced) {
+                eventPublisher.publishEvent(new DirectoryChangedEvent(change.getType(), change.getId()));
+            }
+            total += sequenced.size();
+        } while (sequenced.size() >= sequenceBatchSize);
+        return total;
+    }
+
+    private List<DirectoryChange> sequenceBatch() {
+        long next = jdbcTemplate.queryForObject(LOCK_COUNTER_SQL, Long.class);
+        List<Object[]> assignments = new ArrayList<>();
+        List<DirectoryChange> sequenced = jdbcTemplate.query(UNSEQUENCED_SQL, (rs, rowNum) -> {
+            assignments.add(new Object[]{next + rowNum, rs.getLong("id")});
+            return new DirectoryChange(rs.getString("entity_type"), rs.getLong("entity_id"), next + rowNum,
+                    rs.getBoolean("deleted"));
+        }, sequenceBatchSize);
+        if (!sequenced.isEmpty()) {
+            jdbcTemplate.batchUpdate(ASSIGN_SQL, assignments);
+            jdbcTemplate.update(ADVANCE_COUNTER_SQL, next + sequenced.size());
+        }
+        return sequenced;
+    }
+
+    /** Highest sequence handed out so far; 0 when nothing was sequenced yet. */
+    public long currentCursor() {
+        return jdbcTemplate.queryForObject("SELECT next_seq - 1 FROM directory_change_counter WHERE id = 1", Long.class);
+    }
+
+    /**
+     * Version of one entity: the row id of its latest change, which commits together with the
+     * change and grows with every later one, sequenced or not. Compaction keeps that row.
+     * 0 if the entity has not changed since the feed was introduced.
+     */
+    public long latestVersion(String type, Long id) {
+        Long max = jdbcTemplate.queryForObject(
+                "SELECT MAX(id) FROM directory_change WHERE entity_type = ? AND entity_id = ?", Long.class, type, id);
+        return max == null ? 0 : max;
+    }
+
+    /**
+     * Entities changed after {@code since}, oldest first, with their current state loaded.
+     *
+     * @throws IllegalArgumentException if {@code since} is negative or {@code limit} not positive
+     */
+    public DirectoryChangePage changesSince(long since, int limit) {
+        if (since < 0 || limit <= 0) {
+            throw new IllegalArgumentException("since must be >= 0 and limit > 0");
+        }
+        int pageSize = Math.min(limit, maxPageSize);
+        List<DirectoryChange> changes = jdbcTemplate.query(SINCE_SQL, (rs, rowNum) -> new DirectoryChange(
+                rs.getString("entity_type"), rs.getLong("entity_id"), rs.getLong("seq"), rs.getBoolean("deleted")),
+                since, pageSize + 1);
+        boolean hasMore = changes.size() > pageSize;
+        if (hasMore) {
+            changes = new ArrayList<>(changes.subList(0, pageSize));
+        }
+        attachData(changes);
+        long next = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+        return new DirectoryChangePage(changes, next, hasMore);
+    }
+
+    private void attachData(List<DirectoryChange> changes) {
+        Map<Long, DirectoryChange> users = new HashMap<>();
+        Map<Long, DirectoryChange> profiles = new HashMap<>();
+        for (DirectoryChange change : changes) {
+            if (change.isDeleted()) {
+                continue;
+            }
+            (DirectoryChange.TYPE_USER.equals(change.getType()) ? users : profiles).put(change.getId(), change);
+        }
+        if (!users.isEmpty()) {
+            for (User user : userRepository.findAllById(users.keySet())) {
+                users.get(user.getId()).setData(user);
+            }
+        }
+        if (!profiles.isEmpty()) {
+            for (Profile profile : profileRepository.findAllById(profiles.keySet())) {
+                profiles.get(profile.getId()).setData(profile);
+            }
+        }
+    }
+
+    /** Deletes rows superseded by a newer change of the same entity. */
+    @Scheduled(fixedDelayString = "${app.changefeed.compact-interval-ms:600000}")
+    public int compact() {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(COMPACT_SQL, compactBatchSize);
+            total += deleted;
+        } while (deleted >= compactBatchSize);
+        if (total > 0) {
+            logger.debug("Compacted {} superseded directory changes", total);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,282 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.Profile;
+import com.thanhtam.backend.repository.ProfileRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+// Not @Transactional: changes are only sequenced once the surrounding transaction commits.
+@SpringBootTest(properties = {"app.warmup.enabled=false", "app.scheduling.enabled=false"})
+@RunWith(SpringRunner.class)
+public class DirectoryChangeFeedTest {
+
+    @Autowired
+    private DirectoryChangeFeed directoryChangeFeed;
+    @Autowired
+    private ProfileService profileService;
+    @Autowired
+    private ProfileRepository profileRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityTagCache entityTagCache;
+
+    private final List<Profile> createdProfiles = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        jdbcTemplate.update("DELETE FROM directory_change");
+    }
+
+    @After
+    public void tearDown() {
+        for (Profile profile : createdProfiles) {
+            profileRepository.deleteById(profile.getId());
+        }
+        jdbcTemplate.update("DELETE FROM directory_change");
+    }
+
+    private Profile createProfile(String firstName) {
+        Profile profile = new Profile();
+        profile.setFirstName(firstName);
+        profile.setLastName("Feed");
+        Profile saved = profileService.createProfile(profile);
+        createdProfiles.add(saved);
+        return saved;
+    }
+
+    //TC01
+    @Test
+    public void createProfile_ShouldAppearInFeedWithCurrentState() {
+        // Arrange
+        long cursor = directoryChangeFeed.currentCursor();
+
+        // Act
+        Profile profile = createProfile("Created");
+        DirectoryChangePage page = directoryChangeFeed.changesSince(cursor, 10);
+
+        // Assert
+        assertEquals(1, page.getChanges().size());
+        DirectoryChange change = page.getChanges().get(0);
+        assertEquals(DirectoryChange.TYPE_PROFILE, change.getType());
+        assertEquals(profile.getId(), change.getId());
+        assertFalse(change.isDeleted());
+        assertEquals("Created", ((Profile) change.getData()).getFirstName());
+        assertEquals(change.getSeq(), page.getNextCursor());
+        assertFalse(page.isHasMore());
+    }
+
+    //TC02
+    @Test
+    public void repeatedChanges_ShouldReturnEntityOnceAtLatestSequence() {
+        // Arrange
+        Profile profile = createProfile("First");
+        profile.setFirstName("Second");
+        profileService.createProfile(profile);
+
+        // Act
+        DirectoryChangePage page = directoryChangeFeed.changesSince(0, 10);
+
+        // Assert
+        assertEquals(1, page.getChanges().size());
+        assertEquals(directoryChangeFeed.currentCursor(), page.getChanges().get(0).getSeq());
+        assertEquals("Second", ((Profile) page.getChanges().get(0).getData()).getFirstName());
+    }
+
+    //TC03
+    @Test
+    public void softDelete_ShouldBeFlaggedWithoutData() {
+        // Arrange
+        directoryChangeFeed.record(DirectoryChange.TYPE_USER, 424242L, false);
+        directoryChangeFeed.record(DirectoryChange.TYPE_USER, 424242L, true);
+
+        // Act
+        DirectoryChangePage page = directoryChangeFeed.changesSince(0, 10);
+
+        // Assert
+        assertEquals(1, page.getChanges().size());
+        assertTrue(page.getChanges().get(0).isDeleted());
+        assertNull(page.getChanges().get(0).getData());
+    }
+
+    //TC04
+    @Test
+    public void changesSince_ShouldPageByCursor() {
+        // Arrange
+        for (long id = 1; id <= 5; id++) {
+            directoryChangeFeed.record(DirectoryChange.TYPE_PROFILE, 900000L + id, false);
+        }
+
+        // Act
+        DirectoryChangePage first = directoryChangeFeed.changesSince(0, 2);
+        DirectoryChangePage second = directoryChangeFeed.changesSince(first.getNextCursor(), 2);
+        DirectoryChangePage third = directoryChangeFeed.changesSince(second.getNextCursor(), 2);
+        DirectoryChangePage empty = directoryChangeFeed.changesSince(third.getNextCursor(), 2);
+
+        // Assert
+        assertEquals(2, first.getChanges().size());
+        assertTrue(first.isHasMore());
+        assertEquals(2, second.getChanges().size());
+        assertEquals(Long.valueOf(900003L), second.getChanges().get(0).getId());
+        assertEquals(1, third.getChanges().size());
+        assertFalse(third.isHasMore());
+        assertTrue(empty.getChanges().isEmpty());
+        assertEquals(third.getNextCursor(), empty.getNextCursor());
+    }
+
+    //TC05
+    @Test
+    public void rolledBackChange_ShouldNotBeRecorded() {
+        // Arrange
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long cursor = directoryChangeFeed.currentCursor();
+
+        // Act
+        transaction.execute(status -> {
+            directoryChangeFeed.record(DirectoryChange.TYPE_PROFILE, 777L, false);
+            status.setRollbackOnly();
+            return null;
+        });
+
+        // Assert
+        assertEquals(cursor, directoryChangeFeed.currentCursor());
+        assertEquals(Integer.valueOf(0), jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM directory_change", Integer.class));
+    }
+
+    //TC06
+    @Test
+    public void compact_ShouldDropSupersededRowsOnly() {
+        // Arrange
+        directoryChangeFeed.record(DirectoryChange.TYPE_PROFILE, 555L, false);
+        directoryChangeFeed.record(DirectoryChange.TYPE_PROFILE, 555L, false);
+        directoryChangeFeed.record(DirectoryChange.TYPE_PROFILE, 556L, false);
+        long cursor = directoryChangeFeed.currentCursor();
+
+        // Act
+        int removed = directoryChangeFeed.compact();
+
+        // Assert
+        assertEquals(1, removed);
+        assertEquals(cursor, directoryChangeFeed.currentCursor());
+        assertEquals(2, directoryChangeFeed.changesSince(0, 10).getChanges().size());
+    }
+
+    //TC07
+    @Test(expected = IllegalArgumentException.class)
+    public void changesSince_NegativeCursor_ShouldThrow() {
+        // Act
+        directoryChangeFeed.changesSince(-1, 10);
+    }
+
+    //TC08
+    @Test
+    public void repositorySave_ShouldBeRecordedWithTheWrite() {
+        // Arrange
+        long cursor = directoryChangeFeed.currentCursor();
+        Profile profile = new Profile();
+        profile.setFirstName("Direct");
+        profile.setLastName("Feed");
+
+        // Act
+        Profile saved = profileRepository.save(profile);
+        createdProfiles.add(saved);
+        DirectoryChangePage page = directoryChangeFeed.changesSince(cursor, 10);
+
+        // Assert
+        assertEquals(1, page.getChanges().size());
+        assertEquals(saved.getId(), page.getChanges().get(0).getId());
+    }
+
+    //TC09
+    @Test
+    public void sequence_ShouldPickUpCommittedRowsLeftUnsequenced() {
+        // Arrange - as if the process died between the commit and sequencing
+        long cursor = directoryChangeFeed.currentCursor();
+        jdbcTemplate.update(DirectoryChangeFeed.INSERT_SQL, DirectoryChange.TYPE_USER, 313131L, true, 0L);
+        assertTrue(directoryChangeFeed.changesSince(cursor, 10).getChanges().isEmpty());
+
+        // Act
+        int sequenced = directoryChangeFeed.sequence();
+
+        // Assert
+        assertEquals(1, sequenced);
+        assertEquals(cursor + 1, directoryChangeFeed.currentCursor());
+        DirectoryChangePage page = directoryChangeFeed.changesSince(cursor, 10);
+        assertEquals(1, page.getChanges().size());
+        assertEquals(Long.valueOf(313131L), page.getChanges().get(0).getId());
+    }
+
+    //TC10
+    @Test
+    public void profilesChangedEvent_ShouldRecordEachIdAndSequenceOncePerTransaction() {
+        // Arrange
+        Profile existing = createProfile("Bulk");
+        long cursor = directoryChangeFeed.currentCursor();
+        List<Long> ids = Arrays.asList(existing.getId(), 868686L);
+
+        // Act
+        int registered = new TransactionTemplate(transactionManager).execute(status -> {
+            int before = TransactionSynchronizationManager.getSynchronizations().size();
+            directoryChangeFeed.onProfilesChanged(new ProfilesChangedEvent(ids));
+            directoryChangeFeed.onProfilesChanged(new ProfilesChangedEvent(ids));
+            return TransactionSynchronizationManager.getSynchronizations().size() - before;
+        });
+        DirectoryChangePage page = directoryChangeFeed.changesSince(cursor, 10);
+
+        // Assert
+        assertEquals(1, registered);
+        assertEquals(2, page.getChanges().size());
+        for (DirectoryChange change : page.getChanges()) {
+            assertEquals(DirectoryChange.TYPE_PROFILE, change.getType());
+            assertEquals(change.getId().equals(868686L), change.isDeleted());
+        }
+    }
+
+    //TC11
+    @Test
+    public void commit_SequencingFails_ShouldStillDropCachedTags() {
+        // Arrange
+        Profile profile = createProfile("Tagged");
+        String before = entityTagCache.profileTag(profile.getId());
+        long nextSeq = jdbcTemplate.queryForObject("SELECT next_seq FROM directory_change_counter WHERE id = 1",
+                Long.class);
+        jdbcTemplate.update("DELETE FROM directory_change_counter");
+        String after;
+        try {
+            // Act
+            new TransactionTemplate(transactionManager).execute(status -> {
+                directoryChangeFeed.onProfilesChanged(
+                        new ProfilesChangedEvent(Collections.singletonList(profile.getId())));
+                return null;
+            });
+            after = entityTagCache.profileTag(profile.getId());
+        } finally {
+            jdbcTemplate.update("INSERT INTO directory_change_counter (id, next_seq) VALUES (1, ?)", nextSeq);
+        }
+
+        // Assert
+        assertNotNull(before);
+        assertNotEquals(before, after);
+        assertEquals(1, (int) jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM directory_change WHERE seq IS NULL", Integer.class));
+    }
+}
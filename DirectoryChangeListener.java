@@ -0,0 +1,181 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.Profile;
+import com.thanhtam.backend.entity.User;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes a {@code directory_change} row for every user and profile that Hibernate inserts,
+ * updates or deletes, including changes to their collections such as a user's roles.
+ *
+ * The rows of one session are inserted right before its transaction commits, on the same
+ * connection, so they commit or roll back together with the entity rows no matter which
+ * service or repository made the change. Announcing and sequencing them is left to
+ * {@link DirectoryChangeFeed#afterCommit}, which is told about every id as it is collected.
+ */
+@Component
+public class DirectoryChangeListener implements HibernatePropertiesCustomizer, Integrator,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient ObjectProvider<DirectoryChangeFeed> changeFeed;
+    private final transient Map<SharedSessionContractImplementor, PendingChanges> pending = new ConcurrentHashMap<>();
+
+    public DirectoryChangeListener(ObjectProvider<DirectoryChangeFeed> changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put("hibernate.integrator_provider",
+                (IntegratorProvider) () -> Collections.<Integrator>singletonList(this));
+    }
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getSession(), event.getEntity(), event.getId(), false);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getSession(), event.getEntity(), event.getId(), false);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getSession(), event.getEntity(), event.getId(), true);
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        recordOwner(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        recordOwner(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        recordOwner(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void recordOwner(AbstractCollectionEvent event) {
+        record(event.getSession(), event.getAffectedOwnerOrNull(), event.getAffectedOwnerIdOrNull(), false);
+    }
+
+    private void record(EventSource session, Object entity, Serializable id, boolean deleted) {
+        String type;
+        if (entity instanceof User) {
+            type = DirectoryChange.TYPE_USER;
+            deleted = deleted || ((User) entity).isDeleted();
+        } else if (entity instanceof Profile) {
+            type = DirectoryChange.TYPE_PROFILE;
+        } else {
+            return;
+        }
+        if (!(id instanceof Long)) {
+            return;
+        }
+        PendingChanges changes = pending.get(session);
+        if (changes == null) {
+            changes = new PendingChanges();
+            pending.put(session, changes);
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) changes);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) changes);
+        }
+        changes.add(type, (Long) id, deleted);
+        changeFeed.getObject().afterCommit(type, Collections.singletonList((Long) id));
+    }
+
+    /** Changes of one session's transaction; a later change of the same entity wins. */
+    private final class PendingChanges implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        private final Map<String, Object[]> changes = new LinkedHashMap<>();
+
+        void add(String type, Long id, boolean deleted) {
+            changes.put(type + ":" + id, new Object[]{type, id, deleted});
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            final long now = System.currentTimeMillis();
+            session.doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(DirectoryChangeFeed.INSERT_SQL)) {
+                    for (Object[] change : changes.values()) {
+                        statement.setString(1, (String) change[0]);
+                        statement.setLong(2, (Long) change[1]);
+                        statement.setBoolean(3, (Boolean) change[2]);
+                        statement.setLong(4, now);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            });
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            pending.remove(session);
+        }
+    }
+}
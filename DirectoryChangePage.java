@@ -0,0 +1,29 @@
+package com.thanhtam.backend.service;
+
+import java.util.List;
+
+/** One page of the change feed; pass {@code nextCursor} as {@code since} to get the next one. */
+public class DirectoryChangePage {
+
+    private final List<DirectoryChange> changes;
+    private final long nextCursor;
+    private final boolean hasMore;
+
+    public DirectoryChangePage(List<DirectoryChange> changes, long nextCursor, boolean hasMore) {
+        this.changes = changes;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<DirectoryChange> getChanges() {
+        return changes;
+    }
+
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
@@ -0,0 +1,25 @@
+package com.thanhtam.backend.service;
+
+/**
+ * Published by {@link DirectoryChangeFeed} for a change of a user or profile: right after the
+ * transaction that made it commits on this instance, and again once the change has received
+ * its sequence, whichever instance committed it. Listeners must therefore tolerate repeats.
+ */
+public class DirectoryChangedEvent {
+
+    private final String type;
+    private final Long id;
+
+    public DirectoryChangedEvent(String type, Long id) {
+        this.type = type;
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
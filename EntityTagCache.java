@@ -0,0 +1,178 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.User;
+import com.thanhtam.backend.repository.ProfileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Small LRU map of entity tags for the current-user and profile resources.
+ *
+ * A tag is the entity id plus its {@link DirectoryChangeFeed#latestVersion version}, which is
+ * written in the same transaction as every change of the entity, so any committed write
+ * changes the tag and it is the same on every instance. The current user's tag also covers
+ * the linked profile, because that payload embeds it. Users and profiles that do not exist
+ * have no tag. Entries are dropped on {@link DirectoryChangedEvent}, which follows every
+ * local commit whether or not sequencing succeeds, and after {@code app.etag.ttl-ms}, which
+ * bounds how long changes made through another instance can go unnoticed. A hit costs no
+ * database access.
+ */
+@Component
+public class EntityTagCache {
+
+    private final ToLongBiFunction<String, Long> latestVersion;
+    private final Function<String, Optional<User>> userLookup;
+    private final Predicate<Long> profileExists;
+    private final LongSupplier clock;
+    private final long ttlMs;
+    private final Map<String, Entry> entries;
+    // Bumped by every invalidation; a load that raced with one is not cached.
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public EntityTagCache(DirectoryChangeFeed changeFeed, UserService userService, ProfileRepository profileRepository,
+                          @Value("${app.etag.max-entries:10000}") int maxEntries,
+                          @Value("${app.etag.ttl-ms:10000}") long ttlMs) {
+        this(changeFeed::latestVersion, userService::getUserByUsername, profileRepository::existsById,
+                maxEntries, ttlMs, System::currentTimeMillis);
+    }
+
+    EntityTagCache(ToLongBiFunction<String, Long> latestVersion, Function<String, Optional<User>> userLookup,
+                   Predicate<Long> profileExists, final int maxEntries, long ttlMs, LongSupplier clock) {
+        if (maxEntries <= 0 || ttlMs <= 0) {
+            throw new IllegalArgumentException("maxEntries and ttlMs must be positive");
+        }
+        this.latestVersion = latestVersion;
+        this.userLookup = userLookup;
+        this.profileExists = profileExists;
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** Tag of the user's own resource, or null if there is no such user. */
+    public String currentUserTag(String username) {
+        Entry entry = currentUser(username);
+        return entry == null ? null : entry.tag;
+    }
+
+    /**
+     * Id of the profile linked to the user, or null if there is no such user or no profile.
+     * Answered from the same entry as {@link #currentUserTag}, so an ownership check next to
+     * a tag lookup costs no extra query.
+     */
+    public Long currentProfileId(String username) {
+        Entry entry = currentUser(username);
+        return entry == null ? null : entry.profileId;
+    }
+
+    private Entry currentUser(String username) {
+        String key = "u:" + username;
+        Entry cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = invalidations.get();
+        Optional<User> user = userLookup.apply(username);
+        if (!user.isPresent()) {
+            return null;
+        }
+        Long userId = user.get().getId();
+        Long profileId = user.get().getProfile() == null ? null : user.get().getProfile().getId();
+        String tag = "u" + userId + "." + latestVersion.applyAsLong(DirectoryChange.TYPE_USER, userId);
+        if (profileId != null) {
+            tag += "-p" + profileId + "." + latestVersion.applyAsLong(DirectoryChange.TYPE_PROFILE, profileId);
+        }
+        Entry entry = new Entry(tag, userId, profileId, clock.getAsLong());
+        put(key, entry, stamp);
+        return entry;
+    }
+
+    /** Tag of the profile, or null if there is no such profile. */
+    public String profileTag(Long profileId) {
+        String key = "p:" + profileId;
+        Entry cached = get(key);
+        if (cached != null) {
+            return cached.tag;
+        }
+        long stamp = invalidations.get();
+        if (!profileExists.test(profileId)) {
+            return null;
+        }
+        String tag = "p" + profileId + "." + latestVersion.applyAsLong(DirectoryChange.TYPE_PROFILE, profileId);
+        put(key, new Entry(tag, null, profileId, clock.getAsLong()), stamp);
+        return tag;
+    }
+
+    @EventListener
+    public void onDirectoryChanged(DirectoryChangedEvent event) {
+        boolean user = DirectoryChange.TYPE_USER.equals(event.getType());
+        invalidations.incrementAndGet();
+        synchronized (entries) {
+            // The map is small and writes are rare next to polls, so a scan beats reverse indexes.
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (event.getId().equals(user ? entry.userId : entry.profileId)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private Entry get(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && clock.getAsLong() - entry.loadedAt >= ttlMs) {
+                entries.remove(key);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void put(String key, Entry entry, long stamp) {
+        synchronized (entries) {
+            if (invalidations.get() == stamp) {
+                entries.put(key, entry);
+            }
+        }
+    }
+
+    private static final class Entry {
+        final String tag;
+        final Long userId;
+        final Long profileId;
+        final long loadedAt;
+
+        Entry(String tag, Long userId, Long profileId, long loadedAt) {
+            this.tag = tag;
+            this.userId = userId;
+            this.profileId = profileId;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
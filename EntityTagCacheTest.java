@@ -0,0 +1,193 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.Profile;
+import com.thanhtam.backend.entity.User;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class EntityTagCacheTest {
+
+    private final Map<String, Long> versions = new HashMap<>();
+    private final Map<String, User> users = new HashMap<>();
+    private final Set<Long> profiles = new HashSet<>(Arrays.asList(1L, 2L, 3L, 7L, 8L));
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicLong now = new AtomicLong(1_000);
+    private EntityTagCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new EntityTagCache((type, id) -> {
+            lookups.incrementAndGet();
+            return versions.getOrDefault(type + id, 0L);
+        }, username -> {
+            lookups.incrementAndGet();
+            return Optional.ofNullable(users.get(username));
+        }, profiles::contains, 2, 10_000, now::get);
+
+        Profile profile = new Profile();
+        profile.setId(7L);
+        User user = new User();
+        user.setId(3L);
+        user.setUsername("alice");
+        user.setProfile(profile);
+        users.put("alice", user);
+    }
+
+    private void change(String type, Long id, long version) {
+        versions.put(type + id, version);
+        cache.onDirectoryChanged(new DirectoryChangedEvent(type, id));
+    }
+
+    //TC01
+    @Test
+    public void currentUserTag_ShouldCoverUserAndProfileAndBeCached() {
+        // Act
+        String first = cache.currentUserTag("alice");
+        int lookupsAfterMiss = lookups.get();
+        String second = cache.currentUserTag("alice");
+
+        // Assert
+        assertEquals("u3.0-p7.0", first);
+        assertEquals(first, second);
+        assertEquals(lookupsAfterMiss, lookups.get());
+    }
+
+    //TC02
+    @Test
+    public void userChange_ShouldInvalidateTag() {
+        // Arrange
+        String before = cache.currentUserTag("alice");
+
+        // Act
+        change(DirectoryChange.TYPE_USER, 3L, 41L);
+
+        // Assert
+        assertNotEquals(before, cache.currentUserTag("alice"));
+        assertEquals("u3.41-p7.0", cache.currentUserTag("alice"));
+    }
+
+    //TC03
+    @Test
+    public void profileChange_ShouldInvalidateProfileAndOwningUserTags() {
+        // Arrange
+        cache.currentUserTag("alice");
+        cache.profileTag(7L);
+
+        // Act
+        change(DirectoryChange.TYPE_PROFILE, 7L, 42L);
+
+        // Assert
+        assertEquals(0, cache.size());
+        assertEquals("p7.42", cache.profileTag(7L));
+        assertEquals("u3.0-p7.42", cache.currentUserTag("alice"));
+    }
+
+    //TC04
+    @Test
+    public void unrelatedChange_ShouldKeepEntries() {
+        // Arrange
+        cache.profileTag(7L);
+
+        // Act
+        change(DirectoryChange.TYPE_PROFILE, 8L, 5L);
+
+        // Assert
+        assertEquals(1, cache.size());
+    }
+
+    //TC05
+    @Test
+    public void expiredEntry_ShouldBeReloaded() {
+        // Arrange
+        cache.profileTag(7L);
+        versions.put(DirectoryChange.TYPE_PROFILE + 7L, 9L);
+
+        // Act
+        now.addAndGet(10_000);
+
+        // Assert
+        assertEquals("p7.9", cache.profileTag(7L));
+    }
+
+    //TC06
+    @Test
+    public void cache_ShouldEvictLeastRecentlyUsed() {
+        // Arrange
+        cache.profileTag(1L);
+        cache.profileTag(2L);
+        cache.profileTag(1L);
+
+        // Act
+        cache.profileTag(3L);
+        int before = lookups.get();
+        cache.profileTag(1L);
+
+        // Assert
+        assertEquals(2, cache.size());
+        assertEquals(before, lookups.get());
+    }
+
+    //TC07
+    @Test
+    public void unknownUser_ShouldHaveNoTag() {
+        // Act
+        String tag = cache.currentUserTag("nobody");
+
+        // Assert
+        assertNull(tag);
+        assertEquals(0, cache.size());
+    }
+
+    //TC08
+    @Test
+    public void unknownProfile_ShouldHaveNoTag() {
+        // Act
+        String tag = cache.profileTag(404L);
+
+        // Assert
+        assertNull(tag);
+        assertEquals(0, cache.size());
+    }
+
+    //TC09
+    @Test
+    public void createdProfile_ShouldGetTagOnceItExists() {
+        // Arrange
+        assertNull(cache.profileTag(9L));
+
+        // Act
+        profiles.add(9L);
+        change(DirectoryChange.TYPE_PROFILE, 9L, 12L);
+
+        // Assert
+        assertEquals("p9.12", cache.profileTag(9L));
+    }
+
+    //TC10
+    @Test
+    public void currentProfileId_ShouldComeFromTheCurrentUserEntry() {
+        // Arrange
+        String tag = cache.currentUserTag("alice");
+        int lookupsAfterMiss = lookups.get();
+
+        // Act
+        Long profileId = cache.currentProfileId("alice");
+
+        // Assert
+        assertNotNull(tag);
+        assertEquals(Long.valueOf(7L), profileId);
+        assertEquals(lookupsAfterMiss, lookups.get());
+        assertNull(cache.currentProfileId("nobody"));
+    }
+}
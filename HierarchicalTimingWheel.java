@@ -0,0 +1,135 @@
+package com.thanhtam.backend.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Hashed hierarchical timing wheel (Varghese &amp; Lauck) with 64 slots per level.
+ *
+ * Adding an entry is O(1); {@link #advance(long, BiConsumer)} costs one slot per elapsed
+ * tick plus the entries that actually expire or cascade down a level. Entries cannot be
+ * removed: callers cancel lazily by ignoring expirations whose deadline no longer matches
+ * their own state. Not thread-safe, callers synchronize.
+ */
+class HierarchicalTimingWheel<K> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private static final class Entry<K> {
+        final K key;
+        final long deadline;
+        final long deadlineTick;
+
+        Entry(K key, long deadline, long deadlineTick) {
+            this.key = key;
+            this.deadline = deadline;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMs;
+    private final int levels;
+    private final ArrayDeque<Entry<K>>[][] wheels;
+    private final List<Entry<K>> overdue = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    HierarchicalTimingWheel(long tickMs, int levels, long startMs) {
+        if (tickMs <= 0 || levels <= 0 || levels > 10) {
+            throw new IllegalArgumentException("tickMs must be positive and levels in 1..10");
+        }
+        this.tickMs = tickMs;
+        this.levels = levels;
+        this.wheels = new ArrayDeque[levels][SLOTS];
+        for (int level = 0; level < levels; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheels[level][slot] = new ArrayDeque<>();
+            }
+        }
+        this.currentTick = startMs / tickMs;
+    }
+
+    void add(K key, long deadlineMs) {
+        // Round up so an entry never fires before its deadline.
+        Entry<K> entry = new Entry<>(key, deadlineMs, (deadlineMs + tickMs - 1) / tickMs);
+        if (entry.deadlineTick <= currentTick) {
+            overdue.add(entry);
+        } else {
+            place(entry);
+        }
+        size++;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMs}, handing every entry whose deadline has
+     * passed to {@code expired} together with the deadline it was added with.
+     */
+    void advance(long nowMs, BiConsumer<K, Long> expired) {
+        if (!overdue.isEmpty()) {
+            List<Entry<K>> due = new ArrayList<>(overdue);
+            overdue.clear();
+            for (Entry<K> entry : due) {
+                fire(entry, expired);
+            }
+        }
+        long targetTick = nowMs / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK));
+                }
+            }
+            ArrayDeque<Entry<K>> bucket = wheels[0][(int) (currentTick & SLOT_MASK)];
+            Entry<K> entry;
+            while ((entry = bucket.poll()) != null) {
+                fire(entry, expired);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void fire(Entry<K> entry, BiConsumer<K, Long> expired) {
+        if (entry.deadlineTick > currentTick) {
+            // Only possible for deadlines beyond the top level's span.
+            place(entry);
+            return;
+        }
+        size--;
+        expired.accept(entry.key, entry.deadline);
+    }
+
+    private void cascade(int level, int slot) {
+        ArrayDeque<Entry<K>> bucket = wheels[level][slot];
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Entry<K>> moving = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Entry<K> entry : moving) {
+            place(entry);
+        }
+    }
+
+    private void place(Entry<K> entry) {
+        long delta = entry.deadlineTick - currentTick;
+        if (delta < 0) {
+            overdue.add(entry);
+            return;
+        }
+        int level = 0;
+        while (level < levels - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((entry.deadlineTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        wheels[level][slot].add(entry);
+    }
+}
@@ -0,0 +1,83 @@
+package com.thanhtam.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps lockouts in the {@code login_lockout} table. Enabled with
+ * {@code app.login.persist=true}. Instances sharing the table only upsert their own lockouts,
+ * keeping the later expiry of a key, and delete rows that have expired, so one instance's
+ * save cannot lift a lockout another instance recorded.
+ */
+@Component
+@ConditionalOnProperty(name = "app.login.persist", havingValue = "true")
+@DependsOn(SchemaInitConfig.INITIALIZER_BEAN)
+public class JdbcLoginLockoutStore implements LoginLockoutStore {
+
+    private static final String EXTEND =
+            "UPDATE login_lockout SET locked_until = ? WHERE lock_key = ? AND locked_until < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public JdbcLoginLockoutStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public void saveActive(Map<String, Long> lockedUntil, long now) {
+        List<String> keys = new ArrayList<>(lockedUntil.keySet());
+        List<Object[]> rows = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Long until = lockedUntil.get(key);
+            rows.add(new Object[]{until, key, until});
+        }
+        if (!rows.isEmpty()) {
+            int[] updated = jdbcTemplate.batchUpdate(EXTEND, rows);
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    insertOrExtend(keys.get(i), lockedUntil.get(keys.get(i)));
+                }
+            }
+        }
+        jdbcTemplate.update("DELETE FROM login_lockout WHERE locked_until <= ?", now);
+    }
+
+    private void insertOrExtend(String key, long until) {
+        try {
+            jdbcTemplate.update("INSERT INTO login_lockout (lock_key, locked_until) VALUES (?, ?)", key, until);
+        } catch (DuplicateKeyException e) {
+            // The stored lockout already runs longer, or another instance inserted the key in between.
+            jdbcTemplate.update(EXTEND, until, key, until);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        jdbcTemplate.update("DELETE FROM login_lockout WHERE lock_key = ?", key);
+    }
+
+    @Override
+    public Map<String, Long> loadActive(long now) {
+        return jdbcTemplate.query("SELECT lock_key, locked_until FROM login_lockout WHERE locked_until > ?",
+                (ResultSetExtractor<Map<String, Long>>) rs -> {
+                    Map<String, Long> active = new HashMap<>();
+                    while (rs.next()) {
+                        active.put(rs.getString("lock_key"), rs.getLong("locked_until"));
+                    }
+                    return active;
+                }, now);
+    }
+}
@@ -0,0 +1,45 @@
+package com.thanhtam.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Mirrors reset tokens into the {@code password_reset_token} table. Enabled with
+ * {@code app.password-reset.write-through=true}; expired rows are deleted on recovery.
+ */
+@Component
+@ConditionalOnProperty(name = "app.password-reset.write-through", havingValue = "true")
+@DependsOn(SchemaInitConfig.INITIALIZER_BEAN)
+public class JdbcPasswordResetTokenWriteThrough implements PasswordResetTokenWriteThrough {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public JdbcPasswordResetTokenWriteThrough(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void save(String tokenHash, Long userId, long expiresAt) {
+        jdbcTemplate.update("INSERT INTO password_reset_token (token_hash, user_id, expires_at) VALUES (?, ?, ?)",
+                tokenHash, userId, expiresAt);
+    }
+
+    @Override
+    public void delete(String tokenHash) {
+        jdbcTemplate.update("DELETE FROM password_reset_token WHERE token_hash = ?", tokenHash);
+    }
+
+    @Override
+    public List<StoredToken> loadActive(long now) {
+        jdbcTemplate.update("DELETE FROM password_reset_token WHERE expires_at <= ?", now);
+        return jdbcTemplate.query("SELECT token_hash, user_id, expires_at FROM password_reset_token",
+                (rs, rowNum) -> new StoredToken(rs.getString("token_hash"), rs.getLong("user_id"),
+                        rs.getLong("expires_at")));
+    }
+}
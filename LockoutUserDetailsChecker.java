@@ -0,0 +1,37 @@
+package com.thanhtam.backend.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.authentication.AccountExpiredException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsChecker;
+
+/**
+ * Pre-authentication checks that treat a temporary lockout from {@link LoginAttemptTracker}
+ * like {@code isAccountNonLocked() == false}. They run before the password is compared, so
+ * a locked-out attempt costs a map lookup instead of a hash. The remaining checks are the
+ * ones Spring Security applies by default.
+ */
+public class LockoutUserDetailsChecker implements UserDetailsChecker {
+
+    private final ObjectProvider<LoginAttemptTracker> loginAttemptTracker;
+
+    public LockoutUserDetailsChecker(ObjectProvider<LoginAttemptTracker> loginAttemptTracker) {
+        this.loginAttemptTracker = loginAttemptTracker;
+    }
+
+    @Override
+    public void check(UserDetails user) {
+        if (!user.isAccountNonLocked()
+                || loginAttemptTracker.getObject().isLocked(user.getUsername(), LoginAttemptListener.remoteAddress(null))) {
+            throw new LockedException("User account is locked");
+        }
+        if (!user.isEnabled()) {
+            throw new DisabledException("User is disabled");
+        }
+        if (!user.isAccountNonExpired()) {
+            throw new AccountExpiredException("User account has expired");
+        }
+    }
+}
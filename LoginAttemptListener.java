@@ -0,0 +1,53 @@
+package com.thanhtam.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Feeds authentication outcomes into {@link LoginAttemptTracker}. Unknown usernames surface
+ * as bad credentials too, so they count against the source address like wrong passwords.
+ */
+@Component
+public class LoginAttemptListener {
+
+    private final LoginAttemptTracker loginAttemptTracker;
+
+    @Autowired
+    public LoginAttemptListener(LoginAttemptTracker loginAttemptTracker) {
+        this.loginAttemptTracker = loginAttemptTracker;
+    }
+
+    @EventListener
+    public void onFailure(AuthenticationFailureBadCredentialsEvent event) {
+        Authentication authentication = event.getAuthentication();
+        loginAttemptTracker.recordFailure(authentication.getName(), remoteAddress(authentication));
+    }
+
+    @EventListener
+    public void onSuccess(AuthenticationSuccessEvent event) {
+        loginAttemptTracker.recordSuccess(event.getAuthentication().getName());
+    }
+
+    /**
+     * Address of the login request: from the authentication details when the login went
+     * through a Spring Security filter, otherwise from the current request.
+     */
+    static String remoteAddress(Authentication authentication) {
+        if (authentication != null && authentication.getDetails() instanceof WebAuthenticationDetails) {
+            return ((WebAuthenticationDetails) authentication.getDetails()).getRemoteAddress();
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            return ((ServletRequestAttributes) attributes).getRequest().getRemoteAddr();
+        }
+        return null;
+    }
+}
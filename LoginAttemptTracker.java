@@ -0,0 +1,347 @@
+package com.thanhtam.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts failed logins per username and per source IP and locks either out for a while once
+ * too many failures pile up.
+ *
+ * Each key owns a sliding window approximated by two fixed buckets: the failures of the
+ * current bucket plus the previous bucket's, weighted by how much of it still overlaps the
+ * window. Buckets count with a {@link LongAdder}, whose striped cells keep a login storm on
+ * one account from contending on a single counter, and roll over with a CAS, so recording a
+ * failure never takes a lock. Checking a lockout is one map probe and a volatile read, which
+ * lets locked-out attempts be refused before the user is loaded or a hash compared.
+ *
+ * At most {@code app.login.max-tracked-users} usernames are tracked at once. Past that, a
+ * failure for a username not yet tracked forces an early sweep; if that frees no room, only
+ * the address is counted, so a flood of random usernames cannot grow the map without bound
+ * and is still stopped by the per-address limit.
+ *
+ * When a {@link LoginLockoutStore} bean is present, active lockouts are saved periodically
+ * and reloaded on startup, so a restart does not lift them.
+ */
+@Component
+public class LoginAttemptTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginAttemptTracker.class);
+
+    static final String USER_PREFIX = "u:";
+    static final String IP_PREFIX = "ip:";
+
+    private final Policy userPolicy;
+    private final Policy ipPolicy;
+    private final LongSupplier clock;
+    private final int maxTrackedUsers;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicInteger trackedUsers = new AtomicInteger();
+    private final AtomicLong lastForcedSweep = new AtomicLong();
+    private final LongAdder untrackedFailures = new LongAdder();
+
+    private LoginLockoutStore lockoutStore;
+
+    @Autowired
+    public LoginAttemptTracker(@Value("${app.login.user.max-failures:5}") int userMaxFailures,
+                               @Value("${app.login.user.window-ms:900000}") long userWindowMs,
+                               @Value("${app.login.user.lockout-ms:900000}") long userLockoutMs,
+                               @Value("${app.login.ip.max-failures:50}") int ipMaxFailures,
+                               @Value("${app.login.ip.window-ms:600000}") long ipWindowMs,
+                               @Value("${app.login.ip.lockout-ms:600000}") long ipLockoutMs,
+                               @Value("${app.login.max-tracked-users:100000}") int maxTrackedUsers) {
+        this(new Policy(userMaxFailures, userWindowMs, userLockoutMs),
+                new Policy(ipMaxFailures, ipWindowMs, ipLockoutMs), System::currentTimeMillis, maxTrackedUsers);
+    }
+
+    LoginAttemptTracker(Policy userPolicy, Policy ipPolicy, LongSupplier clock) {
+        this(userPolicy, ipPolicy, clock, 100_000);
+    }
+
+    LoginAttemptTracker(Policy userPolicy, Policy ipPolicy, LongSupplier clock, int maxTrackedUsers) {
+        if (maxTrackedUsers <= 0) {
+            throw new IllegalArgumentException("app.login.max-tracked-users must be positive");
+        }
+        this.userPolicy = userPolicy;
+        this.ipPolicy = ipPolicy;
+        this.clock = clock;
+        this.maxTrackedUsers = maxTrackedUsers;
+    }
+
+    @Autowired(required = false)
+    public void setLockoutStore(LoginLockoutStore lockoutStore) {
+        this.lockoutStore = lockoutStore;
+    }
+
+    @PostConstruct
+    public void recover() {
+        if (lockoutStore == null) {
+            return;
+        }
+        long now = clock.getAsLong();
+        Map<String, Long> active = lockoutStore.loadActive(now);
+        for (Map.Entry<String, Long> entry : active.entrySet()) {
+            Policy policy = entry.getKey().startsWith(IP_PREFIX) ? ipPolicy : userPolicy;
+            Window window = windows.computeIfAbsent(entry.getKey(), k -> newWindow(k, policy, now));
+            window.lockUntil(entry.getValue(), now);
+        }
+        logger.info("Recovered {} login lockouts", active.size());
+    }
+
+    /** True while either the username or the address is locked out. Both may be null. */
+    public boolean isLocked(String username, String remoteAddress) {
+        long now = clock.getAsLong();
+        return isLocked(userKey(username), now) || isLocked(ipKey(remoteAddress), now);
+    }
+
+    public boolean isUserLocked(String username) {
+        return isLocked(userKey(username), clock.getAsLong());
+    }
+
+    public boolean isAddressLocked(String remoteAddress) {
+        return isLocked(ipKey(remoteAddress), clock.getAsLong());
+    }
+
+    private boolean isLocked(String key, long now) {
+        if (key == null) {
+            return false;
+        }
+        Window window = windows.get(key);
+        return window != null && window.lockedUntil.get() > now;
+    }
+
+    /** Counts a failed attempt against the username and the address. */
+    public void recordFailure(String username, String remoteAddress) {
+        long now = clock.getAsLong();
+        recordFailure(userKey(username), userPolicy, now);
+        recordFailure(ipKey(remoteAddress), ipPolicy, now);
+    }
+
+    private void recordFailure(String key, Policy policy, long now) {
+        if (key == null) {
+            return;
+        }
+        Window window = windows.get(key);
+        if (window == null) {
+            if (key.startsWith(USER_PREFIX) && !roomForUser(now)) {
+                untrackedFailures.increment();
+                return;
+            }
+            window = windows.computeIfAbsent(key, k -> newWindow(k, policy, now));
+        }
+        if (window.recordFailure(now) >= policy.maxFailures) {
+            if (window.lockUntil(now + policy.lockoutMs, now)) {
+                logger.warn("Locking out {} for {} ms after repeated login failures", key, policy.lockoutMs);
+            }
+        }
+    }
+
+    private boolean roomForUser(long now) {
+        if (trackedUsers.get() < maxTrackedUsers) {
+            return true;
+        }
+        // At most one forced sweep per second, so a flood does not turn every failure into a scan.
+        long last = lastForcedSweep.get();
+        if (now - last >= 1000 && lastForcedSweep.compareAndSet(last, now)) {
+            sweep();
+            logger.warn("Tracking {} usernames, the limit; {} failures counted against the address only so far",
+                    trackedUsers.get(), untrackedFailures.sum());
+        }
+        return trackedUsers.get() < maxTrackedUsers;
+    }
+
+    private Window newWindow(String key, Policy policy, long now) {
+        if (key.startsWith(USER_PREFIX)) {
+            trackedUsers.incrementAndGet();
+        }
+        return new Window(policy, now);
+    }
+
+    private void removeWindow(String key) {
+        if (windows.remove(key) != null && key.startsWith(USER_PREFIX)) {
+            trackedUsers.decrementAndGet();
+        }
+    }
+
+    /** A successful login clears the username's history; the address keeps its count. */
+    public void recordSuccess(String username) {
+        String key = userKey(username);
+        if (key != null) {
+            removeWindow(key);
+        }
+    }
+
+    /** Lifts a lockout early, e.g. after a password reset. */
+    public void unlock(String username) {
+        unlockKey(userKey(username));
+    }
+
+    /** Lifts an address lockout early and forgets its failures. */
+    public void unlockAddress(String remoteAddress) {
+        unlockKey(ipKey(remoteAddress));
+    }
+
+    private void unlockKey(String key) {
+        if (key == null) {
+            return;
+        }
+        removeWindow(key);
+        if (lockoutStore != null) {
+            lockoutStore.remove(key);
+        }
+    }
+
+    /** Weighted failure count currently held against a username. */
+    public long failures(String username) {
+        String key = userKey(username);
+        Window window = key == null ? null : windows.get(key);
+        return window == null ? 0 : window.estimate(clock.getAsLong());
+    }
+
+    /** Drops keys whose window has run out and that are not locked. */
+    @Scheduled(fixedDelayString = "${app.login.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = clock.getAsLong();
+        Iterator<Map.Entry<String, Window>> it = windows.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Window> entry = it.next();
+            if (entry.getValue().isIdle(now) && windows.remove(entry.getKey(), entry.getValue())
+                    && entry.getKey().startsWith(USER_PREFIX)) {
+                trackedUsers.decrementAndGet();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.login.persist-interval-ms:30000}")
+    public void persist() {
+        if (lockoutStore == null) {
+            return;
+        }
+        long now = clock.getAsLong();
+        Map<String, Long> active = new HashMap<>();
+        for (Map.Entry<String, Window> entry : windows.entrySet()) {
+            long lockedUntil = entry.getValue().lockedUntil.get();
+            if (lockedUntil > now) {
+                active.put(entry.getKey(), lockedUntil);
+            }
+        }
+        lockoutStore.saveActive(active, now);
+    }
+
+    int size() {
+        return windows.size();
+    }
+
+    int trackedUsers() {
+        return trackedUsers.get();
+    }
+
+    private static String userKey(String username) {
+        return username == null || username.isEmpty() ? null : USER_PREFIX + username.toLowerCase(Locale.ROOT);
+    }
+
+    private static String ipKey(String remoteAddress) {
+        return remoteAddress == null || remoteAddress.isEmpty() ? null : IP_PREFIX + remoteAddress;
+    }
+
+    static final class Policy {
+        final int maxFailures;
+        final long windowMs;
+        final long lockoutMs;
+
+        Policy(int maxFailures, long windowMs, long lockoutMs) {
+            if (maxFailures <= 0 || windowMs <= 0 || lockoutMs <= 0) {
+                throw new IllegalArgumentException("Login lockout settings must be positive");
+            }
+            this.maxFailures = maxFailures;
+            this.windowMs = windowMs;
+            this.lockoutMs = lockoutMs;
+        }
+    }
+
+    private static final class Bucket {
+        final long start;
+        final long previous;
+        final LongAdder failures = new LongAdder();
+
+        Bucket(long start, long previous) {
+            this.start = start;
+            this.previous = previous;
+        }
+    }
+
+    private static final class Window {
+        private final long windowMs;
+        private final AtomicReference<Bucket> current;
+        private final AtomicLong lockedUntil = new AtomicLong();
+
+        Window(Policy policy, long now) {
+            this.windowMs = policy.windowMs;
+            this.current = new AtomicReference<>(new Bucket(align(now), 0));
+        }
+
+        long recordFailure(long now) {
+            Bucket bucket = roll(now);
+            bucket.failures.increment();
+            return estimate(bucket, now);
+        }
+
+        long estimate(long now) {
+            return estimate(roll(now), now);
+        }
+
+        private long estimate(Bucket bucket, long now) {
+            double overlap = 1.0 - (double) (now - bucket.start) / windowMs;
+            return bucket.failures.sum() + (long) Math.floor(bucket.previous * Math.max(0.0, overlap));
+        }
+
+        private Bucket roll(long now) {
+            while (true) {
+                Bucket bucket = current.get();
+                if (now < bucket.start + windowMs) {
+                    return bucket;
+                }
+                long start = align(now);
+                long previous = start - bucket.start == windowMs ? bucket.failures.sum() : 0;
+                // Losing the race is fine: the winner's bucket is just as good.
+                current.compareAndSet(bucket, new Bucket(start, previous));
+            }
+        }
+
+        private long align(long now) {
+            return now - Math.floorMod(now, windowMs);
+        }
+
+        /** Extends the lockout to {@code until}; true if the key was not locked at {@code now}. */
+        boolean lockUntil(long until, long now) {
+            while (true) {
+                long previous = lockedUntil.get();
+                if (previous >= until) {
+                    return false;
+                }
+                if (lockedUntil.compareAndSet(previous, until)) {
+                    return previous <= now;
+                }
+            }
+        }
+
+        boolean isIdle(long now) {
+            return lockedUntil.get() <= now && now >= current.get().start + 2 * windowMs;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.thanhtam.backend.service;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class LoginAttemptTrackerTest {
+
+    private static final long WINDOW = 60_000;
+    private static final long LOCKOUT = 300_000;
+
+    private final AtomicLong now = new AtomicLong(1_200_000);
+    private LoginAttemptTracker tracker;
+
+    @Before
+    public void setUp() {
+        tracker = new LoginAttemptTracker(new LoginAttemptTracker.Policy(3, WINDOW, LOCKOUT),
+                new LoginAttemptTracker.Policy(10, WINDOW, LOCKOUT), now::get);
+    }
+
+    //TC01
+    @Test
+    public void recordFailure_BelowThreshold_ShouldNotLock() {
+        // Act
+        tracker.recordFailure("alice", "10.0.0.1");
+        tracker.recordFailure("alice", "10.0.0.1");
+
+        // Assert
+        assertFalse(tracker.isLocked("alice", "10.0.0.1"));
+        assertEquals(2, tracker.failures("alice"));
+    }
+
+    //TC02
+    @Test
+    public void recordFailure_AtThreshold_ShouldLockUsernameUntilLockoutExpires() {
+        // Act
+        for (int i = 0; i < 3; i++) {
+            tracker.recordFailure("Alice", "10.0.0.1");
+        }
+
+        // Assert
+        assertTrue(tracker.isUserLocked("alice"));
+        assertTrue(tracker.isLocked("ALICE", null));
+        assertFalse(tracker.isAddressLocked("10.0.0.1"));
+        now.addAndGet(LOCKOUT);
+        assertFalse(tracker.isUserLocked("alice"));
+    }
+
+    //TC03
+    @Test
+    public void recordFailure_ManyUsernamesFromOneAddress_ShouldLockAddress() {
+        // Act
+        for (int i = 0; i < 10; i++) {
+            tracker.recordFailure("user" + i, "10.0.0.2");
+        }
+
+        // Assert
+        assertTrue(tracker.isAddressLocked("10.0.0.2"));
+        assertTrue(tracker.isLocked("someone-else", "10.0.0.2"));
+        assertFalse(tracker.isLocked("someone-else", "10.0.0.3"));
+    }
+
+    //TC04
+    @Test
+    public void failures_ShouldDecayAcrossWindows() {
+        // Arrange
+        tracker.recordFailure("bob", null);
+        tracker.recordFailure("bob", null);
+
+        // Act
+        now.addAndGet(WINDOW + WINDOW / 2);
+        long halfDecayed = tracker.failures("bob");
+        now.addAndGet(WINDOW);
+        long expired = tracker.failures("bob");
+
+        // Assert
+        assertEquals(1, halfDecayed);
+        assertEquals(0, expired);
+    }
+
+    //TC05
+    @Test
+    public void recordSuccess_ShouldClearUsernameHistory() {
+        // Arrange
+        tracker.recordFailure("carol", "10.0.0.4");
+        tracker.recordFailure("carol", "10.0.0.4");
+
+        // Act
+        tracker.recordSuccess("carol");
+        tracker.recordFailure("carol", "10.0.0.4");
+
+        // Assert
+        assertFalse(tracker.isUserLocked("carol"));
+        assertEquals(1, tracker.failures("carol"));
+    }
+
+    //TC06
+    @Test
+    public void sweep_ShouldDropIdleKeysButKeepLockouts() {
+        // Arrange
+        tracker.recordFailure("idle", null);
+        for (int i = 0; i < 3; i++) {
+            tracker.recordFailure("locked", null);
+        }
+
+        // Act
+        now.addAndGet(2 * WINDOW);
+        tracker.sweep();
+
+        // Assert
+        assertEquals(1, tracker.size());
+        assertTrue(tracker.isUserLocked("locked"));
+    }
+
+    //TC07
+    @Test
+    public void persist_ShouldSurviveRestart() {
+        // Arrange
+        final Map<String, Long> table = new HashMap<>();
+        LoginLockoutStore store = store(table);
+        tracker.setLockoutStore(store);
+        for (int i = 0; i < 3; i++) {
+            tracker.recordFailure("dave", null);
+        }
+
+        // Act
+        tracker.persist();
+        LoginAttemptTracker restarted = new LoginAttemptTracker(new LoginAttemptTracker.Policy(3, WINDOW, LOCKOUT),
+                new LoginAttemptTracker.Policy(10, WINDOW, LOCKOUT), now::get);
+        restarted.setLockoutStore(store);
+        restarted.recover();
+
+        // Assert
+        assertEquals(1, table.size());
+        assertTrue(restarted.isUserLocked("dave"));
+    }
+
+    private static LoginLockoutStore store(final Map<String, Long> table) {
+        return new LoginLockoutStore() {
+            @Override
+            public void saveActive(Map<String, Long> lockedUntil, long at) {
+                lockedUntil.forEach((key, until) -> table.merge(key, until, Math::max));
+                table.values().removeIf(until -> until <= at);
+            }
+
+            @Override
+            public void remove(String key) {
+                table.remove(key);
+            }
+
+            @Override
+            public Map<String, Long> loadActive(long at) {
+                return new HashMap<>(table);
+            }
+        };
+    }
+
+    //TC08
+    @Test
+    public void recordFailure_Concurrently_ShouldCountEveryAttempt() throws Exception {
+        // Arrange
+        LoginAttemptTracker wide = new LoginAttemptTracker(new LoginAttemptTracker.Policy(100_000, WINDOW, LOCKOUT),
+                new LoginAttemptTracker.Policy(100_000, WINDOW, LOCKOUT), now::get);
+        final int threads = 8;
+        final int perThread = 1000;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    wide.recordFailure("storm", "10.0.0.9");
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        // Act
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Assert
+        assertEquals(threads * perThread, wide.failures("storm"));
+    }
+
+    //TC09
+    @Test
+    public void recordFailure_TooManyUsernames_ShouldCountOnlyTheAddress() {
+        // Arrange
+        LoginAttemptTracker capped = new LoginAttemptTracker(new LoginAttemptTracker.Policy(3, WINDOW, LOCKOUT),
+                new LoginAttemptTracker.Policy(50, WINDOW, LOCKOUT), now::get, 5);
+
+        // Act
+        for (int i = 0; i < 50; i++) {
+            capped.recordFailure("random-" + i, "10.0.0.66");
+        }
+
+        // Assert
+        assertEquals(5, capped.trackedUsers());
+        assertEquals(6, capped.size());
+        assertEquals(0, capped.failures("random-49"));
+        assertTrue(capped.isAddressLocked("10.0.0.66"));
+    }
+
+    //TC10
+    @Test
+    public void recordFailure_CapReachedByIdleUsernames_ShouldSweepAndTrackNewOnes() {
+        // Arrange
+        LoginAttemptTracker capped = new LoginAttemptTracker(new LoginAttemptTracker.Policy(3, WINDOW, LOCKOUT),
+                new LoginAttemptTracker.Policy(1000, WINDOW, LOCKOUT), now::get, 5);
+        for (int i = 0; i < 5; i++) {
+            capped.recordFailure("old-" + i, null);
+        }
+        now.addAndGet(2 * WINDOW);
+
+        // Act
+        capped.recordFailure("fresh", null);
+
+        // Assert
+        assertEquals(1, capped.trackedUsers());
+        assertEquals(1, capped.failures("fresh"));
+    }
+
+    //TC11
+    @Test
+    public void unlockAddress_ShouldLiftTheLockoutAndDropItFromTheStore() {
+        // Arrange
+        Map<String, Long> table = new HashMap<>();
+        tracker.setLockoutStore(store(table));
+        for (int i = 0; i < 10; i++) {
+            tracker.recordFailure(null, "10.0.0.7");
+        }
+        tracker.persist();
+
+        // Act
+        tracker.unlockAddress("10.0.0.7");
+
+        // Assert
+        assertFalse(tracker.isAddressLocked("10.0.0.7"));
+        assertTrue(table.isEmpty());
+    }
+}
@@ -0,0 +1,34 @@
+package com.thanhtam.backend.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Builds the username and password authentication provider with
+ * {@link LockoutUserDetailsChecker} as its pre-authentication checks, so a locked-out
+ * username gets {@code LockedException} before its password is compared.
+ *
+ * Being the only {@code AuthenticationProvider} bean, it backs the global authentication
+ * manager. A security configuration that sets up its own {@code AuthenticationManagerBuilder}
+ * registers it with {@code auth.authenticationProvider(...)}; providers the builder creates
+ * itself, e.g. through {@code auth.userDetailsService(...)}, get the same checks from
+ * {@link LoginLockoutPostProcessor}.
+ */
+@Configuration
+public class LoginLockoutConfig {
+
+    @Bean
+    public DaoAuthenticationProvider lockoutAuthenticationProvider(UserDetailsService userDetailsService,
+                                                                   PasswordEncoder passwordEncoder,
+                                                                   ObjectProvider<LoginAttemptTracker> loginAttemptTracker) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setPreAuthenticationChecks(new LockoutUserDetailsChecker(loginAttemptTracker));
+        return provider;
+    }
+}
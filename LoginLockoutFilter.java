@@ -0,0 +1,51 @@
+package com.thanhtam.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Turns away login requests from a locked-out address with 429 before the body is read,
+ * the user loaded or any password hashed. Username lockouts are enforced by
+ * {@link LockoutUserDetailsChecker}, since the username is only known after parsing.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class LoginLockoutFilter extends OncePerRequestFilter {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final LoginAttemptTracker loginAttemptTracker;
+    private final String loginPath;
+
+    @Autowired
+    public LoginLockoutFilter(LoginAttemptTracker loginAttemptTracker,
+                              @Value("${app.login.path:/api/auth/signin}") String loginPath) {
+        this.loginAttemptTracker = loginAttemptTracker;
+        this.loginPath = loginPath;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !loginPath.equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (loginAttemptTracker.isAddressLocked(request.getRemoteAddr())) {
+            response.sendError(TOO_MANY_REQUESTS, "Too many failed login attempts");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
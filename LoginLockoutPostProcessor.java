@@ -0,0 +1,32 @@
+package com.thanhtam.backend.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.security.authentication.dao.AbstractUserDetailsAuthenticationProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Installs {@link LockoutUserDetailsChecker} as the pre-authentication checks of
+ * user-details authentication providers that {@link LoginLockoutConfig} does not build.
+ * Besides provider beans this covers the providers an {@code AuthenticationManagerBuilder}
+ * creates for {@code auth.userDetailsService(...)}, which Spring Security initializes through
+ * the bean factory and so through this post-processor.
+ */
+@Component
+public class LoginLockoutPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<LoginAttemptTracker> loginAttemptTracker;
+
+    public LoginLockoutPostProcessor(ObjectProvider<LoginAttemptTracker> loginAttemptTracker) {
+        this.loginAttemptTracker = loginAttemptTracker;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof AbstractUserDetailsAuthenticationProvider) {
+            ((AbstractUserDetailsAuthenticationProvider) bean)
+                    .setPreAuthenticationChecks(new LockoutUserDetailsChecker(loginAttemptTracker));
+        }
+        return bean;
+    }
+}
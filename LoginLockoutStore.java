@@ -0,0 +1,19 @@
+package com.thanhtam.backend.service;
+
+import java.util.Map;
+
+/**
+ * Durable copy of the active lockouts of {@link LoginAttemptTracker}, keyed like the tracker
+ * ({@code u:<username>}, {@code ip:<address>}) with the lock expiry in epoch millis. Only
+ * used to survive a restart; lockout checks never go through it. Several instances may share
+ * one store, so a save only adds or extends lockouts and drops expired ones; it never removes
+ * a lockout another instance wrote.
+ */
+public interface LoginLockoutStore {
+
+    void saveActive(Map<String, Long> lockedUntil, long now);
+
+    void remove(String key);
+
+    Map<String, Long> loadActive(long now);
+}
@@ -0,0 +1,159 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.User;
+import com.thanhtam.backend.repository.UserRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.annotation.ObjectPostProcessor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+@SpringBootTest(properties = "app.warmup.enabled=false")
+@RunWith(SpringRunner.class)
+@Transactional
+public class LoginLockoutTest {
+
+    private static final String USERNAME = "lockout-user";
+    private static final String PASSWORD = "correct-password";
+    private static final String ADDRESS = "203.0.113.7";
+
+    @Autowired
+    private DaoAuthenticationProvider lockoutAuthenticationProvider;
+    @Autowired
+    private ObjectPostProcessor<Object> objectPostProcessor;
+    @Autowired
+    private UserDetailsService userDetailsService;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private LoginAttemptTracker loginAttemptTracker;
+    @Autowired
+    private LoginLockoutFilter loginLockoutFilter;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Before
+    public void setUp() {
+        User user = new User();
+        user.setUsername(USERNAME);
+        user.setEmail("lockout-user@example.com");
+        user.setPassword(passwordEncoder.encode(PASSWORD));
+        user.setDeleted(false);
+        user.setRoles(new HashSet<>());
+        userRepository.save(user);
+    }
+
+    @After
+    public void tearDown() {
+        loginAttemptTracker.unlock(USERNAME);
+        loginAttemptTracker.unlockAddress(ADDRESS);
+    }
+
+    private void lockUser() {
+        while (!loginAttemptTracker.isUserLocked(USERNAME)) {
+            loginAttemptTracker.recordFailure(USERNAME, null);
+        }
+    }
+
+    private void lockAddress() {
+        while (!loginAttemptTracker.isAddressLocked(ADDRESS)) {
+            loginAttemptTracker.recordFailure(null, ADDRESS);
+        }
+    }
+
+    //TC01
+    @Test
+    public void lockedUser_ShouldBeRefusedEvenWithCorrectPassword() {
+        // Arrange
+        lockUser();
+
+        // Act & Assert
+        try {
+            lockoutAuthenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(USERNAME, PASSWORD));
+            fail("Expected LockedException");
+        } catch (LockedException e) {
+            assertEquals("User account is locked", e.getMessage());
+        }
+    }
+
+    //TC02
+    @Test
+    public void unlockedUser_ShouldAuthenticate() {
+        // Act
+        Authentication result = lockoutAuthenticationProvider.authenticate(
+                new UsernamePasswordAuthenticationToken(USERNAME, PASSWORD));
+
+        // Assert
+        assertTrue(result.isAuthenticated());
+        assertEquals(USERNAME, result.getName());
+    }
+
+    //TC03
+    @Test(expected = LockedException.class)
+    public void builderCreatedProvider_ShouldRefuseLockedUser() {
+        // Arrange - what auth.userDetailsService(...).passwordEncoder(...) builds
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        provider = objectPostProcessor.postProcess(provider);
+        lockUser();
+
+        // Act
+        provider.authenticate(new UsernamePasswordAuthenticationToken(USERNAME, PASSWORD));
+    }
+
+    //TC04
+    @Test
+    public void lockedAddress_ShouldGetTooManyRequestsOnLogin() throws Exception {
+        // Arrange
+        lockAddress();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/signin");
+        request.setServletPath("/api/auth/signin");
+        request.setRemoteAddr(ADDRESS);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        loginLockoutFilter.doFilter(request, response, chain);
+
+        // Assert
+        assertEquals(429, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    //TC05
+    @Test
+    public void lockedAddress_ShouldStillReachOtherEndpoints() throws Exception {
+        // Arrange
+        lockAddress();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/profile");
+        request.setServletPath("/api/users/profile");
+        request.setRemoteAddr(ADDRESS);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        loginLockoutFilter.doFilter(request, response, chain);
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertSame(request, chain.getRequest());
+    }
+}
@@ -0,0 +1,240 @@
+package com.thanhtam.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory store for password-reset tokens.
+ *
+ * Tokens are keyed by the SHA-256 of the raw token, so lookup is a single hash-map probe
+ * and the raw value is never kept. Expiry is driven by a {@link HierarchicalTimingWheel}
+ * advanced from one scheduled sweep instead of one scheduled task per token. Each user
+ * may hold at most {@code maxTokensPerUser} outstanding tokens; issuing another one drops
+ * the oldest. When a {@link PasswordResetTokenWriteThrough} bean is present every change
+ * is mirrored to it and active tokens are reloaded on startup.
+ */
+@Component
+public class PasswordResetTokenStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordResetTokenStore.class);
+
+    private static final int TOKEN_BYTES = 32;
+    private static final int WHEEL_LEVELS = 4;
+
+    static final class TokenEntry {
+        final Long userId;
+        final long expiresAt;
+
+        TokenEntry(Long userId, long expiresAt) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, TokenEntry> tokens = new ConcurrentHashMap<>();
+    private final Map<Long, Deque<String>> tokensByUser = new ConcurrentHashMap<>();
+    private final HierarchicalTimingWheel<String> wheel;
+    private final LongSupplier clock;
+    private final long ttlMs;
+    private final int maxTokensPerUser;
+
+    private PasswordResetTokenWriteThrough writeThrough;
+
+    @Autowired
+    public PasswordResetTokenStore(@Value("${app.password-reset.ttl-ms:900000}") long ttlMs,
+                                   @Value("${app.password-reset.max-tokens-per-user:3}") int maxTokensPerUser,
+                                   @Value("${app.password-reset.tick-ms:1000}") long tickMs) {
+        this(ttlMs, maxTokensPerUser, tickMs, System::currentTimeMillis);
+    }
+
+    PasswordResetTokenStore(long ttlMs, int maxTokensPerUser, long tickMs, LongSupplier clock) {
+        if (ttlMs <= 0 || maxTokensPerUser <= 0) {
+            throw new IllegalArgumentException("ttlMs and maxTokensPerUser must be positive");
+        }
+        this.ttlMs = ttlMs;
+        this.maxTokensPerUser = maxTokensPerUser;
+        this.clock = clock;
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, WHEEL_LEVELS, clock.getAsLong());
+    }
+
+    @Autowired(required = false)
+    public void setWriteThrough(PasswordResetTokenWriteThrough writeThrough) {
+        this.writeThrough = writeThrough;
+    }
+
+    @PostConstruct
+    public void recover() {
+        if (writeThrough == null) {
+            return;
+        }
+        long now = clock.getAsLong();
+        List<PasswordResetTokenWriteThrough.StoredToken> active = writeThrough.loadActive(now);
+        for (PasswordResetTokenWriteThrough.StoredToken stored : active) {
+            register(stored.getTokenHash(), stored.getUserId(), stored.getExpiresAt());
+        }
+        logger.info("Recovered {} password reset tokens", active.size());
+    }
+
+    /**
+     * Issues a new token for {@code userId}.
+     *
+     * @return the raw token to send to the user; only its hash is stored
+     */
+    public String issue(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("userId is required");
+        }
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        String tokenHash = hash(rawToken);
+        long expiresAt = clock.getAsLong() + ttlMs;
+        register(tokenHash, userId, expiresAt);
+        if (writeThrough != null) {
+            writeThrough.save(tokenHash, userId, expiresAt);
+        }
+        return rawToken;
+    }
+
+    /** Returns the owner of a valid token without consuming it. */
+    public Optional<Long> findUserId(String rawToken) {
+        if (rawToken == null) {
+            return Optional.empty();
+        }
+        TokenEntry entry = tokens.get(hash(rawToken));
+        if (entry == null || entry.expiresAt <= clock.getAsLong()) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.userId);
+    }
+
+    /** Validates and removes a token; a token can only be consumed once. */
+    public Optional<Long> consume(String rawToken) {
+        if (rawToken == null) {
+            return Optional.empty();
+        }
+        String tokenHash = hash(rawToken);
+        TokenEntry entry = tokens.remove(tokenHash);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        forget(tokenHash, entry);
+        return entry.expiresAt > clock.getAsLong() ? Optional.of(entry.userId) : Optional.empty();
+    }
+
+    /** Drops every outstanding token of a user, e.g. after a successful reset. */
+    public void invalidateUser(Long userId) {
+        Deque<String> hashes = tokensByUser.remove(userId);
+        if (hashes == null) {
+            return;
+        }
+        synchronized (hashes) {
+            for (String tokenHash : hashes) {
+                if (tokens.remove(tokenHash) != null && writeThrough != null) {
+                    writeThrough.delete(tokenHash);
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.password-reset.tick-ms:1000}")
+    public void expire() {
+        long now = clock.getAsLong();
+        synchronized (wheel) {
+            wheel.advance(now, (tokenHash, deadline) -> {
+                TokenEntry entry = tokens.get(tokenHash);
+                // Consumed or superseded tokens are cancelled lazily here.
+                if (entry != null && entry.expiresAt == deadline && tokens.remove(tokenHash, entry)) {
+                    forget(tokenHash, entry);
+                }
+            });
+        }
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    int outstandingFor(Long userId) {
+        Deque<String> hashes = tokensByUser.get(userId);
+        if (hashes == null) {
+            return 0;
+        }
+        synchronized (hashes) {
+            return hashes.size();
+        }
+    }
+
+    private void register(String tokenHash, Long userId, long expiresAt) {
+        TokenEntry entry = new TokenEntry(userId, expiresAt);
+        tokens.put(tokenHash, entry);
+        synchronized (wheel) {
+            wheel.add(tokenHash, expiresAt);
+        }
+        String evicted = null;
+        while (true) {
+            Deque<String> hashes = tokensByUser.computeIfAbsent(userId, id -> new ArrayDeque<>());
+            synchronized (hashes) {
+                // forget() may have unlinked this deque after it emptied it; retry with a fresh one.
+                if (tokensByUser.get(userId) != hashes) {
+                    continue;
+                }
+                hashes.addLast(tokenHash);
+                if (hashes.size() > maxTokensPerUser) {
+                    evicted = hashes.pollFirst();
+                }
+                break;
+            }
+        }
+        if (evicted != null && tokens.remove(evicted) != null && writeThrough != null) {
+            writeThrough.delete(evicted);
+        }
+    }
+
+    private void forget(String tokenHash, TokenEntry entry) {
+        Deque<String> hashes = tokensByUser.get(entry.userId);
+        if (hashes != null) {
+            synchronized (hashes) {
+                hashes.remove(tokenHash);
+                if (hashes.isEmpty()) {
+                    tokensByUser.remove(entry.userId, hashes);
+                }
+            }
+        }
+        if (writeThrough != null) {
+            writeThrough.delete(tokenHash);
+        }
+    }
+
+    static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.thanhtam.backend.service;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class PasswordResetTokenStoreTest {
+
+    /** Write-through kept in a map, standing in for the password_reset_token table. */
+    static class MapWriteThrough implements PasswordResetTokenWriteThrough {
+        final Map<String, StoredToken> rows = new LinkedHashMap<>();
+
+        @Override
+        public void save(String tokenHash, Long userId, long expiresAt) {
+            rows.put(tokenHash, new StoredToken(tokenHash, userId, expiresAt));
+        }
+
+        @Override
+        public void delete(String tokenHash) {
+            rows.remove(tokenHash);
+        }
+
+        @Override
+        public List<StoredToken> loadActive(long now) {
+            List<StoredToken> active = new ArrayList<>();
+            for (StoredToken token : rows.values()) {
+                if (token.getExpiresAt() > now) {
+                    active.add(token);
+                }
+            }
+            return active;
+        }
+    }
+
+    private static final long TTL_MS = 60_000;
+
+    private long now;
+    private PasswordResetTokenStore store;
+
+    @Before
+    public void setUp() {
+        now = 1_000_000;
+        store = new PasswordResetTokenStore(TTL_MS, 2, 1000, () -> now);
+    }
+
+    //TC01
+    @Test
+    public void issue_ShouldReturnTokenThatResolvesToUser() {
+        // Act
+        String token = store.issue(1L);
+
+        // Assert
+        assertNotNull(token);
+        assertEquals(Optional.of(1L), store.findUserId(token));
+    }
+
+    //TC02
+    @Test
+    public void consume_ShouldOnlySucceedOnce() {
+        // Arrange
+        String token = store.issue(1L);
+
+        // Act & Assert
+        assertEquals(Optional.of(1L), store.consume(token));
+        assertFalse(store.consume(token).isPresent());
+        assertEquals(0, store.size());
+    }
+
+    //TC03
+    @Test
+    public void consume_UnknownToken_ShouldReturnEmpty() {
+        assertFalse(store.consume("not-a-token").isPresent());
+        assertFalse(store.consume(null).isPresent());
+    }
+
+    //TC04
+    @Test
+    public void expire_ShouldDropTokensAfterTtl() {
+        // Arrange
+        String token = store.issue(1L);
+
+        // Act
+        now += TTL_MS - 1000;
+        store.expire();
+        boolean validBeforeTtl = store.findUserId(token).isPresent();
+        now += 2000;
+        store.expire();
+
+        // Assert
+        assertTrue(validBeforeTtl);
+        assertFalse(store.findUserId(token).isPresent());
+        assertEquals(0, store.size());
+        assertEquals(0, store.outstandingFor(1L));
+    }
+
+    //TC05
+    @Test
+    public void issue_OverPerUserLimit_ShouldDropOldestToken() {
+        // Arrange
+        String first = store.issue(1L);
+        String second = store.issue(1L);
+
+        // Act
+        String third = store.issue(1L);
+
+        // Assert
+        assertFalse(store.findUserId(first).isPresent());
+        assertTrue(store.findUserId(second).isPresent());
+        assertTrue(store.findUserId(third).isPresent());
+        assertEquals(2, store.outstandingFor(1L));
+    }
+
+    //TC06
+    @Test
+    public void invalidateUser_ShouldDropOnlyThatUsersTokens() {
+        // Arrange
+        String token1 = store.issue(1L);
+        String token2 = store.issue(2L);
+
+        // Act
+        store.invalidateUser(1L);
+
+        // Assert
+        assertFalse(store.findUserId(token1).isPresent());
+        assertEquals(Optional.of(2L), store.findUserId(token2));
+    }
+
+    //TC07
+    @Test(expected = IllegalArgumentException.class)
+    public void issue_WithNullUserId_ShouldThrow() {
+        store.issue(null);
+    }
+
+    //TC08
+    @Test
+    public void expire_TtlBeyondFirstLevel_ShouldCascadeAndExpireOnTime() {
+        // Arrange - 64 one-second slots per level, so these land on levels 1 and 2
+        long defaultTtl = 900_000;
+        long longTtl = 7_200_000;
+        store = new PasswordResetTokenStore(longTtl, 2, 1000, () -> now);
+        String longToken = store.issue(1L);
+        PasswordResetTokenStore defaultStore = new PasswordResetTokenStore(defaultTtl, 2, 1000, () -> now);
+        String defaultToken = defaultStore.issue(2L);
+        long start = now;
+
+        // Act & Assert - ticking every 7 s, as a busy scheduler would
+        while (now < start + longTtl + 7_000) {
+            now += 7_000;
+            store.expire();
+            defaultStore.expire();
+            assertEquals(now - start < defaultTtl, defaultStore.findUserId(defaultToken).isPresent());
+            assertEquals(now - start < defaultTtl ? 1 : 0, defaultStore.size());
+            assertEquals(now - start < longTtl ? 1 : 0, store.size());
+        }
+        assertFalse(store.findUserId(longToken).isPresent());
+        assertEquals(0, store.outstandingFor(1L));
+    }
+
+    //TC09
+    @Test
+    public void expire_SingleLongJump_ShouldDropTokensOfEveryLevel() {
+        // Arrange
+        store = new PasswordResetTokenStore(900_000, 3, 1000, () -> now);
+        store.issue(1L);
+        now += 500_000;
+        store.issue(2L);
+
+        // Act
+        now += 900_000;
+        store.expire();
+
+        // Assert
+        assertEquals(0, store.size());
+    }
+
+    //TC10
+    @Test
+    public void recover_ShouldReloadActiveTokensThroughWriteThrough() {
+        // Arrange
+        MapWriteThrough writeThrough = new MapWriteThrough();
+        store.setWriteThrough(writeThrough);
+        String kept = store.issue(1L);
+        String consumed = store.issue(2L);
+        store.consume(consumed);
+        now += 30_000;
+        String late = store.issue(3L);
+        now += TTL_MS - 10_000;
+
+        // Act - a new instance after a restart
+        PasswordResetTokenStore restarted = new PasswordResetTokenStore(TTL_MS, 2, 1000, () -> now);
+        restarted.setWriteThrough(writeThrough);
+        restarted.recover();
+
+        // Assert
+        assertFalse(restarted.findUserId(kept).isPresent());
+        assertFalse(restarted.findUserId(consumed).isPresent());
+        assertEquals(Optional.of(3L), restarted.findUserId(late));
+        assertEquals(1, restarted.size());
+        now += 20_000;
+        restarted.expire();
+        assertEquals(0, restarted.size());
+    }
+}
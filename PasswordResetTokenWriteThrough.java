@@ -0,0 +1,40 @@
+package com.thanhtam.backend.service;
+
+import java.util.List;
+
+/**
+ * Durable mirror of {@link PasswordResetTokenStore}, used only to rebuild the store after
+ * a restart. Lookups never go through it.
+ */
+public interface PasswordResetTokenWriteThrough {
+
+    void save(String tokenHash, Long userId, long expiresAt);
+
+    void delete(String tokenHash);
+
+    List<StoredToken> loadActive(long now);
+
+    final class StoredToken {
+        private final String tokenHash;
+        private final Long userId;
+        private final long expiresAt;
+
+        public StoredToken(String tokenHash, Long userId, long expiresAt) {
+            this.tokenHash = tokenHash;
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getTokenHash() {
+            return tokenHash;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
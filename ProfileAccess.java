@@ -0,0 +1,47 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.Profile;
+import com.thanhtam.backend.entity.User;
+import com.thanhtam.backend.ultilities.ERole;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+/**
+ * Owner-or-admin rule for profile resources: admins may act on any profile, every other
+ * user only on the profile linked to their own account.
+ */
+@Component
+public class ProfileAccess {
+
+    private final UserService userService;
+
+    @Autowired
+    public ProfileAccess(UserService userService) {
+        this.userService = userService;
+    }
+
+    public boolean isOwnerOrAdmin(Authentication authentication, Long profileId) {
+        if (authentication == null || !authentication.isAuthenticated() || profileId == null) {
+            return false;
+        }
+        if (isAdmin(authentication)) {
+            return true;
+        }
+        return userService.getUserByUsername(authentication.getName())
+                .map(User::getProfile)
+                .map(Profile::getId)
+                .filter(profileId::equals)
+                .isPresent();
+    }
+
+    public static boolean isAdmin(Authentication authentication) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (ERole.ROLE_ADMIN.name().equals(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
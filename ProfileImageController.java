@@ -0,0 +1,182 @@
+package com.thanhtam.backend.controller;
+
+import com.thanhtam.backend.entity.Profile;
+import com.thanhtam.backend.service.ByteRange;
+import com.thanhtam.backend.service.ProfileAccess;
+import com.thanhtam.backend.service.ProfileImageService;
+import com.thanhtam.backend.service.ProfileImageStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Serves profile images straight from {@link ProfileImageStore}.
+ *
+ * Only the owner of a profile or an admin may replace its image (see {@link ProfileAccess}).
+ * Images are immutable under their content hash, so responses carry a strong ETag and a
+ * one-year immutable cache lifetime; {@code If-None-Match} is answered with 304 before any
+ * file is opened. Single byte ranges (with {@code If-Range}) are honoured for originals and
+ * thumbnails.
+ *
+ * Originals are handed to Tomcat's sendfile when the connector offers it, so the bytes go
+ * from the page cache to the socket without passing through the heap. Other containers, and
+ * connectors with sendfile off, get a copy through the servlet output stream.
+ */
+@RestController
+@RequestMapping("/api/profiles")
+public class ProfileImageController {
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ProfileImageStore profileImageStore;
+    private final ProfileImageService profileImageService;
+    private final ProfileAccess profileAccess;
+
+    @Autowired
+    public ProfileImageController(ProfileImageStore profileImageStore, ProfileImageService profileImageService,
+                                  ProfileAccess profileAccess) {
+        this.profileImageStore = profileImageStore;
+        this.profileImageService = profileImageService;
+        this.profileAccess = profileAccess;
+    }
+
+    @PostMapping("/{profileId}/image")
+    public Profile uploadImage(@PathVariable Long profileId, @RequestParam("file") MultipartFile file)
+            throws IOException {
+        if (!profileAccess.isOwnerOrAdmin(SecurityContextHolder.getContext().getAuthentication(), profileId)) {
+            throw new AccessDeniedException("Only the owner or an admin may change this profile image");
+        }
+        try (InputStream content = file.getInputStream()) {
+            return profileImageService.updateImage(profileId, content);
+        }
+    }
+
+    @GetMapping("/images/{hash}")
+    public void getImage(@PathVariable String hash, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String etag = "\"" + hash + "\"";
+        Optional<Path> file = profileImageStore.find(hash);
+        if (!file.isPresent()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (notModified(request, response, etag)) {
+            return;
+        }
+        long length = Files.size(file.get());
+        ByteRange range = rangeFor(request, response, etag, length);
+        if (range == null && response.getStatus() == HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE) {
+            return;
+        }
+        writeHeaders(response, etag, profileImageStore.contentType(file.get()), length, range);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        long start = range == null ? 0 : range.getStart();
+        long count = range == null ? length : range.getLength();
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file to the socket itself once the request returns; end is exclusive.
+            request.setAttribute(SENDFILE_FILENAME, file.get().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        profileImageStore.transfer(file.get(), start, count, Channels.newChannel(response.getOutputStream()));
+    }
+
+    @GetMapping("/images/{hash}/thumbnail")
+    public void getThumbnail(@PathVariable String hash, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String etag = "\"" + hash + "-thumb\"";
+        if (notModified(request, response, etag)) {
+            return;
+        }
+        Optional<byte[]> thumbnail = profileImageStore.thumbnail(hash);
+        if (!thumbnail.isPresent()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        byte[] bytes = thumbnail.get();
+        ByteRange range = rangeFor(request, response, etag, bytes.length);
+        if (range == null && response.getStatus() == HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE) {
+            return;
+        }
+        writeHeaders(response, etag, "image/jpeg", bytes.length, range);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (range == null) {
+            response.getOutputStream().write(bytes);
+        } else {
+            response.getOutputStream().write(bytes, (int) range.getStart(), (int) range.getLength());
+        }
+    }
+
+    private static boolean notModified(HttpServletRequest request, HttpServletResponse response, String etag) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                response.setHeader("ETag", etag);
+                response.setHeader("Cache-Control", CACHE_CONTROL);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ByteRange rangeFor(HttpServletRequest request, HttpServletResponse response, String etag,
+                                      long length) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange != null && !ifRange.trim().equals(etag)) {
+            return null;
+        }
+        try {
+            return ByteRange.parse(request.getHeader("Range"), length);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader("Content-Range", "bytes */" + length);
+            return null;
+        }
+    }
+
+    private static void writeHeaders(HttpServletResponse response, String etag, String contentType, long length,
+                                     ByteRange range) {
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", CACHE_CONTROL);
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setContentType(contentType == null ? "application/octet-stream" : contentType);
+        if (range == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentLengthLong(length);
+        } else {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", range.toContentRange(length));
+            response.setContentLengthLong(range.getLength());
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.thanhtam.backend.controller;
+
+import com.thanhtam.backend.entity.Profile;
+import com.thanhtam.backend.entity.User;
+import com.thanhtam.backend.repository.ProfileRepository;
+import com.thanhtam.backend.repository.UserRepository;
+import com.thanhtam.backend.service.ProfileImageStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+@SpringBootTest(properties = {
+        "app.warmup.enabled=false",
+        "app.images.dir=target/profile-image-controller-test"
+})
+@RunWith(SpringRunner.class)
+@Transactional
+public class ProfileImageControllerTest {
+
+    private static final String OWNER = "image-owner";
+
+    @Autowired
+    private ProfileImageController profileImageController;
+    @Autowired
+    private ProfileImageStore profileImageStore;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProfileRepository profileRepository;
+
+    private byte[] image;
+    private String hash;
+    private String etag;
+    private Profile ownProfile;
+    private Profile otherProfile;
+
+    @Before
+    public void setUp() throws IOException {
+        image = png(20, 20);
+        hash = profileImageStore.store(new ByteArrayInputStream(image));
+        etag = "\"" + hash + "\"";
+
+        ownProfile = profileRepository.saveAndFlush(new Profile());
+        otherProfile = profileRepository.saveAndFlush(new Profile());
+        User owner = new User();
+        owner.setUsername(OWNER);
+        owner.setEmail(OWNER + "@example.com");
+        owner.setPassword("password");
+        owner.setDeleted(false);
+        owner.setRoles(new HashSet<>());
+        owner.setProfile(ownProfile);
+        userRepository.saveAndFlush(owner);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(OWNER, null, Collections.emptyList()));
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage picture = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        picture.setRGB(0, 0, 0x00FF00);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(picture, "png", out);
+        return out.toByteArray();
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        profileImageController.getImage(hash, request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/api/profiles/images/x");
+    }
+
+    //TC01
+    @Test
+    public void getImage_IfNoneMatchesEtag_ShouldReturn304WithoutBody() throws IOException {
+        // Arrange
+        MockHttpServletRequest request = request();
+        request.addHeader("If-None-Match", "\"other\", W/" + etag);
+
+        // Act
+        MockHttpServletResponse response = get(request);
+
+        // Assert
+        assertEquals(304, response.getStatus());
+        assertEquals(etag, response.getHeader("ETag"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    //TC02
+    @Test
+    public void getImage_RangeWithMatchingIfRange_ShouldReturnPartialContent() throws IOException {
+        // Arrange
+        MockHttpServletRequest request = request();
+        request.addHeader("Range", "bytes=0-9");
+        request.addHeader("If-Range", etag);
+
+        // Act
+        MockHttpServletResponse response = get(request);
+
+        // Assert
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 0-9/" + image.length, response.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOf(image, 10), response.getContentAsByteArray());
+    }
+
+    //TC03
+    @Test
+    public void getImage_RangeWithStaleIfRange_ShouldReturnWholeImage() throws IOException {
+        // Arrange
+        MockHttpServletRequest request = request();
+        request.addHeader("Range", "bytes=0-9");
+        request.addHeader("If-Range", "\"stale\"");
+
+        // Act
+        MockHttpServletResponse response = get(request);
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("Content-Range"));
+        assertArrayEquals(image, response.getContentAsByteArray());
+    }
+
+    //TC04
+    @Test
+    public void getImage_RangePastTheEnd_ShouldReturn416() throws IOException {
+        // Arrange
+        MockHttpServletRequest request = request();
+        request.addHeader("Range", "bytes=" + image.length + "-");
+
+        // Act
+        MockHttpServletResponse response = get(request);
+
+        // Assert
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */" + image.length, response.getHeader("Content-Range"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    //TC05
+    @Test
+    public void getImage_SendfileSupported_ShouldHandTheRangeToTheContainer() throws IOException {
+        // Arrange
+        MockHttpServletRequest request = request();
+        request.setAttribute(ProfileImageController.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader("Range", "bytes=5-");
+
+        // Act
+        MockHttpServletResponse response = get(request);
+
+        // Assert
+        Path file = profileImageStore.find(hash).get();
+        assertEquals(206, response.getStatus());
+        assertEquals(file.toAbsolutePath().toString(),
+                request.getAttribute(ProfileImageController.SENDFILE_FILENAME));
+        assertEquals(5L, request.getAttribute(ProfileImageController.SENDFILE_START));
+        assertEquals((long) image.length, request.getAttribute(ProfileImageController.SENDFILE_END));
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(image.length, Files.size(file));
+    }
+
+    //TC06
+    @Test(expected = AccessDeniedException.class)
+    public void uploadImage_OtherUsersProfile_ShouldBeDenied() throws IOException {
+        profileImageController.uploadImage(otherProfile.getId(),
+                new MockMultipartFile("file", "avatar.png", "image/png", png(8, 8)));
+    }
+
+    //TC07
+    @Test
+    public void uploadImage_OwnProfile_ShouldStoreAndLinkTheImage() throws IOException {
+        // Arrange
+        byte[] avatar = png(8, 8);
+
+        // Act
+        Profile updated = profileImageController.uploadImage(ownProfile.getId(),
+                new MockMultipartFile("file", "avatar.png", "image/png", avatar));
+
+        // Assert
+        assertNotNull(updated.getImage());
+        assertArrayEquals(avatar, Files.readAllBytes(profileImageStore.find(updated.getImage()).get()));
+    }
+}
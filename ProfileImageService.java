@@ -0,0 +1,36 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.Profile;
+import com.thanhtam.backend.repository.ProfileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Links uploaded images to profiles. {@code Profile.image} stores the content hash returned by
+ * {@link ProfileImageStore}; the profile itself is still saved through {@link ProfileService}.
+ */
+@Service
+public class ProfileImageService {
+
+    private final ProfileImageStore profileImageStore;
+    private final ProfileRepository profileRepository;
+    private final ProfileService profileService;
+
+    @Autowired
+    public ProfileImageService(ProfileImageStore profileImageStore, ProfileRepository profileRepository,
+                               ProfileService profileService) {
+        this.profileImageStore = profileImageStore;
+        this.profileRepository = profileRepository;
+        this.profileService = profileService;
+    }
+
+    public Profile updateImage(Long profileId, InputStream content) throws IOException {
+        Profile profile = profileRepository.findById(profileId)
+                .orElseThrow(() -> new IllegalArgumentException("Profile not found: " + profileId));
+        profile.setImage(profileImageStore.store(content));
+        return profileService.createProfile(profile);
+    }
+}
@@ -0,0 +1,278 @@
+package com.thanhtam.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed storage for profile images on local disk.
+ *
+ * An image is stored once under the hex SHA-256 of its bytes ({@code ab/cd/abcd...}), so
+ * {@code Profile.image} holds the hash and identical uploads share a file. Originals are
+ * copied to the response in one pass from a {@link FileChannel}, so only the requested range
+ * is read. Only formats the installed ImageIO readers can decode are accepted, because every
+ * upload must be able to produce a thumbnail; stock Java reads PNG, JPEG and GIF, WebP needs
+ * a plugin. Each upload is checked against {@code app.images.max-dimension} and decoded once
+ * before it is stored. Thumbnails are rendered once to disk and kept in a byte-bounded LRU
+ * cache.
+ */
+@Component
+public class ProfileImageStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final int SNIFF_BYTES = 12;
+
+    private final Path root;
+    private final Path thumbnailRoot;
+    private final long maxUploadBytes;
+    private final int maxDimension;
+    private final int thumbnailSize;
+    private final ThumbnailCache thumbnailCache;
+
+    @Autowired
+    public ProfileImageStore(@Value("${app.images.dir:data/images}") String directory,
+                             @Value("${app.images.max-upload-bytes:5242880}") long maxUploadBytes,
+                             @Value("${app.images.max-dimension:4096}") int maxDimension,
+                             @Value("${app.images.thumbnail-size:128}") int thumbnailSize,
+                             @Value("${app.images.thumbnail-cache-bytes:33554432}") long thumbnailCacheBytes)
+            throws IOException {
+        this.root = Paths.get(directory).toAbsolutePath();
+        this.thumbnailRoot = root.resolve("thumbnails");
+        this.maxUploadBytes = maxUploadBytes;
+        this.maxDimension = maxDimension;
+        this.thumbnailSize = thumbnailSize;
+        this.thumbnailCache = new ThumbnailCache(thumbnailCacheBytes);
+        Files.createDirectories(thumbnailRoot);
+    }
+
+    /**
+     * Stores an uploaded image and returns its content hash.
+     *
+     * @throws IllegalArgumentException if the upload is too large, wider or taller than
+     *                                  {@code app.images.max-dimension}, or not an image ImageIO
+     *                                  can decode completely
+     */
+    public String store(InputStream content) throws IOException {
+        Path temp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                byte[] buffer = new byte[16 * 1024];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxUploadBytes) {
+                        throw new IllegalArgumentException("Image exceeds " + maxUploadBytes + " bytes");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            String type = contentType(temp);
+            if (type == null || !decodable(type)) {
+                throw new IllegalArgumentException("Unsupported image format" + (type == null ? "" : ": " + type));
+            }
+            checkImage(temp, type);
+            String hash = toHex(digest.digest());
+            Path target = pathFor(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target);
+                } catch (FileAlreadyExistsException e) {
+                    // A concurrent upload of the same bytes won; its file is identical.
+                }
+            }
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /** Path of a stored original, if the hash is well-formed and the file exists. */
+    public Optional<Path> find(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathFor(hash);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Copies {@code length} bytes starting at {@code position} to {@code target}. For a socket
+     * channel {@link FileChannel#transferTo} can avoid the heap; a servlet output stream wrapped
+     * with {@code Channels.newChannel} gets an ordinary buffered copy, which is why the
+     * controller prefers the container's sendfile and only falls back to this.
+     */
+    public void transfer(Path file, long position, long length, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long sent = 0;
+            while (sent < length) {
+                long n = channel.transferTo(position + sent, length - sent, target);
+                if (n <= 0) {
+                    break;
+                }
+                sent += n;
+            }
+        }
+    }
+
+    /** JPEG thumbnail of at most {@code thumbnailSize} on its longer side. */
+    public Optional<byte[]> thumbnail(String hash) throws IOException {
+        Optional<Path> original = find(hash);
+        if (!original.isPresent()) {
+            return Optional.empty();
+        }
+        byte[] cached = thumbnailCache.get(hash);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Path file = thumbnailRoot.resolve(hash + "-" + thumbnailSize + ".jpg");
+        byte[] bytes;
+        if (Files.isRegularFile(file)) {
+            bytes = Files.readAllBytes(file);
+        } else {
+            String type = contentType(original.get());
+            if (type == null || !decodable(type)) {
+                // Stored before uploads were limited to decodable formats.
+                return Optional.empty();
+            }
+            bytes = render(original.get());
+            Path temp = Files.createTempFile(thumbnailRoot, "thumb-", ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        thumbnailCache.put(hash, bytes);
+        return Optional.of(bytes);
+    }
+
+    /** MIME type sniffed from the file's magic bytes, or null if it is not a supported image. */
+    public String contentType(Path file) throws IOException {
+        byte[] head = new byte[SNIFF_BYTES];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.read(head);
+        }
+        if (read >= 8 && (head[0] & 0xFF) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G') {
+            return "image/png";
+        }
+        if (read >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (read >= 6 && head[0] == 'G' && head[1] == 'I' && head[2] == 'F' && head[3] == '8') {
+            return "image/gif";
+        }
+        if (read >= 12 && head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F'
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private static boolean decodable(String contentType) {
+        return ImageIO.getImageReadersByMIMEType(contentType).hasNext();
+    }
+
+    /**
+     * Reads the dimensions from the header and refuses oversized images before any pixel is
+     * decoded, then decodes the image once so corrupt or truncated files are refused at upload
+     * instead of failing when the thumbnail is rendered.
+     */
+    private void checkImage(Path file, String contentType) throws IOException {
+        ImageReader reader = ImageIO.getImageReadersByMIMEType(contentType).next();
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            reader.setInput(in, true, true);
+            int width;
+            int height;
+            try {
+                width = reader.getWidth(0);
+                height = reader.getHeight(0);
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalArgumentException("Unreadable image header", e);
+            }
+            if (width > maxDimension || height > maxDimension) {
+                throw new IllegalArgumentException("Image is " + width + "x" + height + ", the limit is "
+                        + maxDimension + " pixels on each side");
+            }
+            try {
+                reader.read(0);
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalArgumentException("Corrupt or truncated image", e);
+            }
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    ThumbnailCache getThumbnailCache() {
+        return thumbnailCache;
+    }
+
+    private byte[] render(Path original) throws IOException {
+        BufferedImage source = ImageIO.read(original.toFile());
+        if (source == null) {
+            throw new IOException("Cannot decode image " + original.getFileName());
+        }
+        double scale = Math.min(1.0, (double) thumbnailSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage thumb = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumb.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(thumb, "jpg", out);
+        return out.toByteArray();
+    }
+
+    private Path pathFor(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,179 @@
+package com.thanhtam.backend.service;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class ProfileImageStoreTest {
+
+    private Path directory;
+    private ProfileImageStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("profile-images");
+        store = new ProfileImageStore(directory.toString(), 1024 * 1024, 256, 32, 64 * 1024);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0xFF0000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    //TC01
+    @Test
+    public void store_SameContentTwice_ShouldReturnSameHashAndOneFile() throws IOException {
+        // Arrange
+        byte[] image = png(10, 10);
+
+        // Act
+        String first = store.store(new ByteArrayInputStream(image));
+        String second = store.store(new ByteArrayInputStream(image));
+
+        // Assert
+        assertEquals(first, second);
+        assertEquals(64, first.length());
+        Optional<Path> path = store.find(first);
+        assertTrue(path.isPresent());
+        assertArrayEquals(image, Files.readAllBytes(path.get()));
+        assertEquals("image/png", store.contentType(path.get()));
+    }
+
+    //TC02
+    @Test(expected = IllegalArgumentException.class)
+    public void store_NotAnImage_ShouldBeRejected() throws IOException {
+        store.store(new ByteArrayInputStream("hello world, not an image".getBytes("UTF-8")));
+    }
+
+    //TC03
+    @Test
+    public void find_MalformedHash_ShouldReturnEmpty() {
+        assertFalse(store.find("../../etc/passwd").isPresent());
+        assertFalse(store.find(null).isPresent());
+    }
+
+    //TC04
+    @Test
+    public void transfer_ShouldCopyRequestedRange() throws IOException {
+        // Arrange
+        byte[] image = png(10, 10);
+        Path path = store.find(store.store(new ByteArrayInputStream(image))).get();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        store.transfer(path, 4, 8, Channels.newChannel(out));
+
+        // Assert
+        byte[] expected = new byte[8];
+        System.arraycopy(image, 4, expected, 0, 8);
+        assertArrayEquals(expected, out.toByteArray());
+    }
+
+    //TC05
+    @Test
+    public void thumbnail_ShouldBeRenderedOnceThenServedFromCache() throws IOException {
+        // Arrange
+        String hash = store.store(new ByteArrayInputStream(png(200, 100)));
+
+        // Act
+        byte[] first = store.thumbnail(hash).get();
+        byte[] second = store.thumbnail(hash).get();
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, store.getThumbnailCache().getHits());
+        BufferedImage thumb = ImageIO.read(new ByteArrayInputStream(first));
+        assertEquals(32, thumb.getWidth());
+        assertEquals(16, thumb.getHeight());
+    }
+
+    //TC06
+    @Test
+    public void thumbnailCache_OverBudget_ShouldEvictLeastRecentlyUsed() {
+        // Arrange
+        ThumbnailCache cache = new ThumbnailCache(100);
+        cache.put("a", new byte[40]);
+        cache.put("b", new byte[40]);
+        cache.get("a");
+
+        // Act
+        cache.put("c", new byte[40]);
+
+        // Assert
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(80, cache.getCurrentBytes());
+    }
+
+    //TC07
+    @Test(expected = IllegalArgumentException.class)
+    public void store_WebPWithoutImageIoReader_ShouldBeRejected() throws IOException {
+        // Arrange
+        Assume.assumeFalse(ImageIO.getImageReadersByMIMEType("image/webp").hasNext());
+        byte[] webp = "RIFF\0\0\0\0WEBPVP8 ".getBytes("US-ASCII");
+
+        // Act
+        store.store(new ByteArrayInputStream(webp));
+    }
+
+    //TC08
+    @Test
+    public void store_LargerThanMaxDimension_ShouldBeRejected() throws IOException {
+        // Arrange
+        byte[] image = png(300, 10);
+
+        // Act & Assert
+        try {
+            store.store(new ByteArrayInputStream(image));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Image is 300x10, the limit is 256 pixels on each side", e.getMessage());
+        }
+    }
+
+    //TC09
+    @Test
+    public void store_TruncatedPng_ShouldBeRejectedAndNotStored() throws IOException {
+        // Arrange
+        byte[] image = png(100, 100);
+        byte[] truncated = Arrays.copyOf(image, image.length / 2);
+
+        // Act & Assert
+        try {
+            store.store(new ByteArrayInputStream(truncated));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Corrupt or truncated image", e.getMessage());
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+}
@@ -2,31 +2,19 @@ package com.thanhtam.backend.service;
 
 import com.thanhtam.backend.entity.Profile;
 import com.thanhtam.backend.repository.ProfileRepository;
-import org.junit.After;
+import com.thanhtam.backend.testsupport.InMemoryServiceTest;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.test.annotation.Rollback;
-import org.springframework.test.context.ActiveProfiles;
-//import org.springframework.test.context.DirtiesContext;
-import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.junit4.SpringRunner;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 import static org.junit.Assert.*;
 
-@SpringBootTest
 @RunWith(SpringRunner.class)
-//@ActiveProfiles("test")
-@Transactional
-@Rollback
-//@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
-@Sql(scripts = "/cleanup-profile.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
-@Sql(scripts = "/cleanup-profile.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+@InMemoryServiceTest
 public class ProfileServiceTest {
 
     @Autowired
@@ -39,27 +27,13 @@ public class ProfileServiceTest {
 
     @Before
     public void setUp() {
-        // Clean up existing data
-        cleanupTestData();
-        
-        // Create test profile
+        // Each test starts from an empty in-memory scope, no cleanup needed
         testProfile = new Profile();
         testProfile.setFirstName("Test");
         testProfile.setLastName("User");
         testProfile.setImage("test-image.jpg");
         profileRepository.save(testProfile);
     }
-    
-    @After
-    public void tearDown() {
-        // Clean up after each test
-        cleanupTestData();
-    }
-    
-    private void cleanupTestData() {
-        // Delete test profiles
-        profileRepository.deleteAll();
-    }
 
     //TC01
     @Test
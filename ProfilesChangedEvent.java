@@ -0,0 +1,21 @@
+package com.thanhtam.backend.service;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Published after profile rows were changed outside {@code createProfile} (restores...).
+ * Anything caching per-profile state should drop the ids.
+ */
+public class ProfilesChangedEvent {
+
+    private final Collection<Long> profileIds;
+
+    public ProfilesChangedEvent(Collection<Long> profileIds) {
+        this.profileIds = Collections.unmodifiableCollection(profileIds);
+    }
+
+    public Collection<Long> getProfileIds() {
+        return profileIds;
+    }
+}
@@ -0,0 +1,16 @@
+package com.thanhtam.backend.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on the {@code @Scheduled} background jobs of the service layer: outbox dispatch,
+ * token and lockout sweeps, change feed upkeep. Set {@code app.scheduling.enabled=false} to
+ * run them by hand, e.g. in tests that need deterministic timing.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,45 @@
+package com.thanhtam.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DataSourceInitializer;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+/**
+ * Creates the tables the service layer reads and writes with plain JDBC, which Hibernate
+ * does not know about. Every script only uses {@code CREATE TABLE IF NOT EXISTS} and guarded
+ * inserts, so it runs on each start, against the real database as well as the embedded test
+ * ones. Set {@code app.schema.init=false} where the schema is managed by migrations instead;
+ * the bean stays registered so components that read these tables on startup can depend on it.
+ */
+@Configuration
+public class SchemaInitConfig {
+
+    public static final String INITIALIZER_BEAN = "serviceSchemaInitializer";
+
+    static final String[] SCRIPTS = {
+            "user-outbox.sql",
+            "password-reset-token.sql",
+            "user-audit-log.sql",
+            "directory-change.sql",
+            "login-lockout.sql"
+    };
+
+    @Bean(name = INITIALIZER_BEAN)
+    public DataSourceInitializer serviceSchemaInitializer(DataSource dataSource,
+                                                          @Value("${app.schema.init:true}") boolean enabled) {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
+        for (String script : SCRIPTS) {
+            populator.addScript(new ClassPathResource(script));
+        }
+        DataSourceInitializer initializer = new DataSourceInitializer();
+        initializer.setDataSource(dataSource);
+        initializer.setDatabasePopulator(populator);
+        initializer.setEnabled(enabled);
+        return initializer;
+    }
+}
@@ -0,0 +1,314 @@
+package com.thanhtam.backend.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Binary container used by {@link UserDirectorySnapshotService}.
+ *
+ * <pre>
+ * header   : int magic "UDS1", int version, long createdAt
+ * section  : byte 1, UTF name, int columnCount, UTF column...
+ *            block* (int rowCount, int byteLength, bytes, long crc32), int 0
+ * trailer  : byte 0
+ * </pre>
+ *
+ * Every value carries its own type tag and every section lists its column names, so a reader
+ * can map columns by name onto a newer or older schema. Each block is checksummed and can be
+ * decoded independently, which lets restore hand blocks to parallel workers.
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x55445331;
+    /** 2 added exact decimals; version 1 snapshots are still read. */
+    static final int VERSION = 2;
+
+    private static final byte SECTION = 1;
+    private static final byte END = 0;
+
+    private static final byte T_NULL = 0;
+    private static final byte T_LONG = 1;
+    private static final byte T_STRING = 2;
+    private static final byte T_BOOLEAN = 3;
+    private static final byte T_DOUBLE = 4;
+    private static final byte T_BYTES = 5;
+    private static final byte T_TIMESTAMP = 6;
+    private static final byte T_DECIMAL = 7;
+
+    private SnapshotFormat() {
+    }
+
+    static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final int blockRows;
+        private final ByteArrayOutputStream blockBytes = new ByteArrayOutputStream(64 * 1024);
+        private final DataOutputStream block = new DataOutputStream(blockBytes);
+        private int columnCount = -1;
+        private int rowsInBlock;
+        private long rowsInSection;
+
+        Writer(OutputStream out, int blockRows) throws IOException {
+            if (blockRows <= 0) {
+                throw new IllegalArgumentException("blockRows must be positive");
+            }
+            this.out = new DataOutputStream(out);
+            this.blockRows = blockRows;
+            this.out.writeInt(MAGIC);
+            this.out.writeInt(VERSION);
+            this.out.writeLong(System.currentTimeMillis());
+        }
+
+        void beginSection(String name, List<String> columns) throws IOException {
+            if (columnCount >= 0) {
+                throw new IllegalStateException("Previous section not ended");
+            }
+            out.writeByte(SECTION);
+            out.writeUTF(name);
+            out.writeInt(columns.size());
+            for (String column : columns) {
+                out.writeUTF(column);
+            }
+            columnCount = columns.size();
+            rowsInSection = 0;
+        }
+
+        void writeRow(Object[] values) throws IOException {
+            if (values.length != columnCount) {
+                throw new IllegalArgumentException("Expected " + columnCount + " values but got " + values.length);
+            }
+            for (Object value : values) {
+                writeValue(block, value);
+            }
+            rowsInBlock++;
+            rowsInSection++;
+            if (rowsInBlock == blockRows) {
+                flushBlock();
+            }
+        }
+
+        /** @return number of rows written in the section */
+        long endSection() throws IOException {
+            flushBlock();
+            out.writeInt(0);
+            columnCount = -1;
+            return rowsInSection;
+        }
+
+        private void flushBlock() throws IOException {
+            if (rowsInBlock == 0) {
+                return;
+            }
+            block.flush();
+            byte[] bytes = blockBytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length);
+            out.writeInt(rowsInBlock);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeLong(crc.getValue());
+            blockBytes.reset();
+            rowsInBlock = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (columnCount >= 0) {
+                endSection();
+            }
+            out.writeByte(END);
+            out.flush();
+        }
+    }
+
+    /** A raw, checksum-verified block; {@link #decode()} can run on any thread. */
+    static final class Block {
+        private final int rows;
+        private final int columns;
+        private final byte[] bytes;
+
+        Block(int rows, int columns, byte[] bytes) {
+            this.rows = rows;
+            this.columns = columns;
+            this.bytes = bytes;
+        }
+
+        List<Object[]> decode() throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            List<Object[]> result = new ArrayList<>(rows);
+            for (int r = 0; r < rows; r++) {
+                Object[] row = new Object[columns];
+                for (int c = 0; c < columns; c++) {
+                    row[c] = readValue(in);
+                }
+                result.add(row);
+            }
+            return result;
+        }
+
+        int getRows() {
+            return rows;
+        }
+    }
+
+    static final class Reader {
+        private final DataInputStream in;
+        private final int version;
+        private final long createdAt;
+        private String sectionName;
+        private List<String> columns = Collections.emptyList();
+        private boolean inSection;
+
+        Reader(InputStream in) throws IOException {
+            this.in = new DataInputStream(in);
+            int magic = this.in.readInt();
+            if (magic != MAGIC) {
+                throw new IOException("Not a user directory snapshot");
+            }
+            this.version = this.in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ", this build reads up to " + VERSION);
+            }
+            this.createdAt = this.in.readLong();
+        }
+
+        /** Moves to the next section, skipping what is left of the current one; null at the end. */
+        String nextSection() throws IOException {
+            while (inSection) {
+                nextBlock();
+            }
+            byte marker = in.readByte();
+            if (marker == END) {
+                return null;
+            }
+            if (marker != SECTION) {
+                throw new IOException("Corrupt snapshot: unexpected marker " + marker);
+            }
+            sectionName = in.readUTF();
+            int count = in.readInt();
+            List<String> names = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                names.add(in.readUTF());
+            }
+            columns = Collections.unmodifiableList(names);
+            inSection = true;
+            return sectionName;
+        }
+
+        /** Next block of the current section, or null when the section is finished. */
+        Block nextBlock() throws IOException {
+            if (!inSection) {
+                return null;
+            }
+            int rows = in.readInt();
+            if (rows == 0) {
+                inSection = false;
+                return null;
+            }
+            int length = in.readInt();
+            if (rows < 0 || length < 0) {
+                throw new IOException("Corrupt snapshot block in section " + sectionName);
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            long expected = in.readLong();
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length);
+            if (crc.getValue() != expected) {
+                throw new IOException("Checksum mismatch in section " + sectionName);
+            }
+            return new Block(rows, columns.size(), bytes);
+        }
+
+        List<String> getColumns() {
+            return columns;
+        }
+
+        int getVersion() {
+            return version;
+        }
+
+        long getCreatedAt() {
+            return createdAt;
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(T_NULL);
+        } else if (value instanceof Boolean) {
+            out.writeByte(T_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            // Exact: unscaled digits as a string plus the scale.
+            BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal((BigInteger) value);
+            out.writeByte(T_DECIMAL);
+            out.writeUTF(decimal.unscaledValue().toString());
+            out.writeInt(decimal.scale());
+        } else if (value instanceof Float || value instanceof Double) {
+            out.writeByte(T_DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            out.writeByte(T_LONG);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof Date) {
+            out.writeByte(T_TIMESTAMP);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out.writeByte(T_BYTES);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else {
+            // writeUTF is limited to 64 KB, long text goes as UTF-8 bytes.
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            out.writeByte(T_STRING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case T_NULL:
+                return null;
+            case T_LONG:
+                return in.readLong();
+            case T_BOOLEAN:
+                return in.readBoolean();
+            case T_DOUBLE:
+                return in.readDouble();
+            case T_TIMESTAMP:
+                return new Timestamp(in.readLong());
+            case T_DECIMAL:
+                return new BigDecimal(new BigInteger(in.readUTF()), in.readInt());
+            case T_BYTES:
+            case T_STRING:
+                int length = in.readInt();
+                if (length < 0) {
+                    throw new EOFException("Negative length");
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                return tag == T_BYTES ? bytes : new String(bytes, StandardCharsets.UTF_8);
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+}
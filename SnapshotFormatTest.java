@@ -0,0 +1,142 @@
+package com.thanhtam.backend.service;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SnapshotFormatTest {
+
+    private byte[] writeSample(int rows, int blockRows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SnapshotFormat.Writer writer = new SnapshotFormat.Writer(bytes, blockRows);
+        writer.beginSection("users", Arrays.asList("id", "username", "password", "deleted"));
+        for (int i = 0; i < rows; i++) {
+            writer.writeRow(new Object[]{(long) i, "user" + i, "$2a$10$hash" + i, i % 2 == 0});
+        }
+        writer.endSection();
+        writer.beginSection("user_roles", Arrays.asList("user_id", "role_name"));
+        writer.writeRow(new Object[]{1L, "ROLE_STUDENT"});
+        writer.writeRow(new Object[]{1L, null});
+        writer.close();
+        return bytes.toByteArray();
+    }
+
+    //TC01
+    @Test
+    public void roundTrip_ShouldPreserveSectionsColumnsAndValues() throws IOException {
+        // Arrange
+        byte[] snapshot = writeSample(5, 2);
+
+        // Act
+        SnapshotFormat.Reader reader = new SnapshotFormat.Reader(new ByteArrayInputStream(snapshot));
+
+        // Assert
+        assertEquals("users", reader.nextSection());
+        assertEquals(Arrays.asList("id", "username", "password", "deleted"), reader.getColumns());
+        int blocks = 0;
+        int rows = 0;
+        SnapshotFormat.Block block;
+        while ((block = reader.nextBlock()) != null) {
+            for (Object[] row : block.decode()) {
+                assertEquals((long) rows, row[0]);
+                assertEquals("user" + rows, row[1]);
+                assertEquals("$2a$10$hash" + rows, row[2]);
+                assertEquals(rows % 2 == 0, row[3]);
+                rows++;
+            }
+            blocks++;
+        }
+        assertEquals(5, rows);
+        assertEquals(3, blocks);
+
+        assertEquals("user_roles", reader.nextSection());
+        List<Object[]> links = reader.nextBlock().decode();
+        assertEquals("ROLE_STUDENT", links.get(0)[1]);
+        assertNull(links.get(1)[1]);
+        assertNull(reader.nextBlock());
+        assertNull(reader.nextSection());
+    }
+
+    //TC02
+    @Test
+    public void nextSection_ShouldSkipUnreadBlocks() throws IOException {
+        // Arrange
+        SnapshotFormat.Reader reader = new SnapshotFormat.Reader(new ByteArrayInputStream(writeSample(10, 3)));
+
+        // Act
+        reader.nextSection();
+        String second = reader.nextSection();
+
+        // Assert
+        assertEquals("user_roles", second);
+    }
+
+    //TC03
+    @Test
+    public void nextBlock_CorruptedPayload_ShouldFailChecksum() throws IOException {
+        // Arrange
+        byte[] snapshot = writeSample(1, 10);
+        // header (16) + marker (1) + "users" (2 + 5) + column count and names, then block header (8)
+        int firstPayloadByte = 16 + 1 + 7 + 4 + (2 + 2) + (2 + 8) + (2 + 8) + (2 + 7) + 8;
+        snapshot[firstPayloadByte + 3] ^= 0x55;
+        SnapshotFormat.Reader reader = new SnapshotFormat.Reader(new ByteArrayInputStream(snapshot));
+        reader.nextSection();
+
+        // Act & Assert
+        try {
+            reader.nextBlock();
+            fail("Expected a checksum failure");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("Checksum"));
+        }
+    }
+
+    //TC04
+    @Test(expected = IOException.class)
+    public void reader_NewerVersion_ShouldBeRejected() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(SnapshotFormat.MAGIC);
+        out.writeInt(SnapshotFormat.VERSION + 1);
+        out.writeLong(0L);
+        new SnapshotFormat.Reader(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    //TC05
+    @Test(expected = IOException.class)
+    public void reader_WrongMagic_ShouldBeRejected() throws IOException {
+        new SnapshotFormat.Reader(new ByteArrayInputStream(new byte[16]));
+    }
+
+    //TC06
+    @Test
+    public void roundTrip_Decimals_ShouldKeepEveryDigit() throws IOException {
+        // Arrange
+        BigDecimal fee = new BigDecimal("12345678901234567.89");
+        BigInteger large = new BigInteger("18446744073709551615");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SnapshotFormat.Writer writer = new SnapshotFormat.Writer(bytes, 10);
+        writer.beginSection("intakes", Arrays.asList("fee", "quota"));
+        writer.writeRow(new Object[]{fee, large});
+        writer.endSection();
+        writer.close();
+
+        // Act
+        SnapshotFormat.Reader reader = new SnapshotFormat.Reader(new ByteArrayInputStream(bytes.toByteArray()));
+        reader.nextSection();
+        Object[] row = reader.nextBlock().decode().get(0);
+
+        // Assert
+        assertEquals(fee, row[0]);
+        assertEquals(new BigDecimal(large), row[1]);
+    }
+}
@@ -0,0 +1,212 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.Role;
+import com.thanhtam.backend.entity.User;
+import com.thanhtam.backend.repository.IntakeRepository;
+import com.thanhtam.backend.repository.RoleRepository;
+import com.thanhtam.backend.ultilities.ERole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms the login path before the application reports ready.
+ *
+ * Spring Boot only switches readiness to ACCEPTING_TRAFFIC after every ApplicationRunner has
+ * returned, so running here keeps the readiness probe red until role/intake reference data is
+ * loaded, the user lookup queries and {@link UserDetailsImpl#build} have run, and the
+ * {@link PasswordEncoder} hot loop has been through the JIT. Each probe's first call is timed
+ * as its cold cost, and the median of a few calls after the warm-up as its warm cost; both are
+ * logged and kept in {@link #getLastReport()}. The cold time is a single sample taken before
+ * the reference data is loaded: the {@code passwordEncode} probe is the encoder's very first
+ * call and the lookup probes run before any repository, in that order, so shared first-use
+ * costs land on whichever runs first. Tests turn the warm-up off with
+ * {@code app.warmup.enabled=false}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private static final String PROBE_USERNAME = "__warmup_probe__";
+    private static final String PROBE_PASSWORD = "warmup-password";
+    private static final int WARM_SAMPLES = 5;
+    private static final List<String> LOOKUP_PROBES =
+            Arrays.asList("findRoleByName", "existsByUsername", "existsByEmail", "getUserByUsername");
+
+    /** First-call and median warm latency of one probe, in microseconds. */
+    public static final class ProbeTiming {
+        private final long coldMicros;
+        private final long warmMicros;
+
+        ProbeTiming(long coldMicros, long warmMicros) {
+            this.coldMicros = coldMicros;
+            this.warmMicros = warmMicros;
+        }
+
+        public long getColdMicros() {
+            return coldMicros;
+        }
+
+        public long getWarmMicros() {
+            return warmMicros;
+        }
+    }
+
+    private interface Probe {
+        void run();
+    }
+
+    private final UserService userService;
+    private final RoleService roleService;
+    private final RoleRepository roleRepository;
+    private final IntakeRepository intakeRepository;
+    private final PasswordEncoder passwordEncoder;
+
+    @Value("${app.warmup.lookup-iterations:200}")
+    private int lookupIterations = 200;
+
+    @Value("${app.warmup.crypto-budget-ms:1500}")
+    private long cryptoBudgetMs = 1500;
+
+    @Value("${app.warmup.crypto-max-iterations:200}")
+    private int cryptoMaxIterations = 200;
+
+    private volatile Map<String, ProbeTiming> lastReport = Collections.emptyMap();
+    private volatile long lastDurationMs;
+
+    @Autowired
+    public StartupWarmup(UserService userService, RoleService roleService, RoleRepository roleRepository,
+                         IntakeRepository intakeRepository, PasswordEncoder passwordEncoder) {
+        this.userService = userService;
+        this.roleService = roleService;
+        this.roleRepository = roleRepository;
+        this.intakeRepository = intakeRepository;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long startedAt = System.nanoTime();
+        try {
+            warmUp();
+        } catch (RuntimeException e) {
+            // A failed warm-up must not keep the instance out of rotation.
+            logger.warn("Startup warm-up failed, continuing cold", e);
+        }
+        lastDurationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        logger.info("Startup warm-up finished in {} ms", lastDurationMs);
+        for (Map.Entry<String, ProbeTiming> entry : lastReport.entrySet()) {
+            logger.info("Warm-up probe {}: first call {} us, after warm-up {} us",
+                    entry.getKey(), entry.getValue().getColdMicros(), entry.getValue().getWarmMicros());
+        }
+    }
+
+    void warmUp() {
+        Map<String, Long> cold = new LinkedHashMap<>();
+        // The probe hash is the first thing the encoder computes, so this is the truly cold
+        // cost; the passwordMatches probe below already runs on a warmed-up encoder.
+        long encodeBegin = System.nanoTime();
+        final String probeHash = passwordEncoder.encode(PROBE_PASSWORD);
+        cold.put("passwordEncode", TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - encodeBegin));
+
+        final User probeUser = new User();
+        probeUser.setId(-1L);
+        probeUser.setUsername(PROBE_USERNAME);
+        probeUser.setEmail(PROBE_USERNAME + "@localhost");
+        probeUser.setPassword(probeHash);
+
+        Map<String, Probe> probes = new LinkedHashMap<>();
+        probes.put("findRoleByName", () -> {
+            for (ERole name : ERole.values()) {
+                roleService.findByName(name);
+            }
+        });
+        probes.put("existsByUsername", () -> userService.existsByUsername(PROBE_USERNAME));
+        probes.put("existsByEmail", () -> userService.existsByEmail(probeUser.getEmail()));
+        probes.put("getUserByUsername", () -> userService.getUserByUsername(PROBE_USERNAME));
+        probes.put("buildUserDetails", () -> UserDetailsImpl.build(probeUser));
+        probes.put("passwordMatches", () -> passwordEncoder.matches(PROBE_PASSWORD, probeHash));
+        probes.put("passwordEncode", () -> passwordEncoder.encode(PROBE_PASSWORD));
+
+        // Lookups get their first call before any repository is touched, so the first of
+        // them also pays for the first connection and query compilation.
+        for (String lookup : LOOKUP_PROBES) {
+            cold.put(lookup, time(probes.get(lookup)));
+        }
+
+        final List<Role> roles = roleRepository.findAll();
+        intakeRepository.findAll();
+        probeUser.setRoles(new HashSet<>(roles));
+
+        for (Map.Entry<String, Probe> probe : probes.entrySet()) {
+            if (!cold.containsKey(probe.getKey())) {
+                cold.put(probe.getKey(), time(probe.getValue()));
+            }
+        }
+
+        for (int i = 0; i < lookupIterations; i++) {
+            for (Map.Entry<String, Probe> probe : probes.entrySet()) {
+                if (!probe.getKey().startsWith("password")) {
+                    probe.getValue().run();
+                }
+            }
+        }
+        int cryptoIterations = calibrateCryptoIterations(cold.get("passwordMatches"));
+        for (int i = 0; i < cryptoIterations; i++) {
+            passwordEncoder.matches(PROBE_PASSWORD, probeHash);
+        }
+
+        Map<String, ProbeTiming> report = new LinkedHashMap<>();
+        for (Map.Entry<String, Probe> probe : probes.entrySet()) {
+            report.put(probe.getKey(), new ProbeTiming(cold.get(probe.getKey()), warmTime(probe.getValue())));
+        }
+        lastReport = Collections.unmodifiableMap(report);
+    }
+
+    /** Fits as many hash comparisons as the budget allows, based on the cold call's cost. */
+    int calibrateCryptoIterations(long coldMatchMicros) {
+        long perCallMicros = Math.max(1, coldMatchMicros);
+        long affordable = TimeUnit.MILLISECONDS.toMicros(cryptoBudgetMs) / perCallMicros;
+        return (int) Math.max(1, Math.min(cryptoMaxIterations, affordable));
+    }
+
+    /** Median of {@link #WARM_SAMPLES} calls, so one GC pause does not decide the warm time. */
+    private static long warmTime(Probe probe) {
+        long[] samples = new long[WARM_SAMPLES];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = time(probe);
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    private static long time(Probe probe) {
+        long begin = System.nanoTime();
+        probe.run();
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin);
+    }
+
+    public Map<String, ProbeTiming> getLastReport() {
+        return lastReport;
+    }
+
+    public long getLastDurationMs() {
+        return lastDurationMs;
+    }
+}
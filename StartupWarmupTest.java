@@ -0,0 +1,45 @@
+package com.thanhtam.backend.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@SpringBootTest(properties = {"app.warmup.crypto-budget-ms=200", "app.warmup.lookup-iterations=5"})
+@RunWith(SpringRunner.class)
+public class StartupWarmupTest {
+
+    @Autowired
+    private StartupWarmup startupWarmup;
+
+    //TC01
+    @Test
+    public void run_ShouldReportEveryProbe() {
+        // Act (warm-up already ran during context startup)
+        Map<String, StartupWarmup.ProbeTiming> report = startupWarmup.getLastReport();
+
+        // Assert
+        assertTrue(report.containsKey("findRoleByName"));
+        assertTrue(report.containsKey("getUserByUsername"));
+        assertTrue(report.containsKey("buildUserDetails"));
+        assertTrue(report.containsKey("passwordMatches"));
+        assertTrue(report.containsKey("passwordEncode"));
+        assertTrue(startupWarmup.getLastDurationMs() >= 0);
+    }
+
+    //TC02
+    @Test
+    public void calibrateCryptoIterations_ShouldStayWithinBudgetAndLimits() {
+        // 200 ms budget at 10 ms per match -> 20 iterations
+        assertEquals(20, startupWarmup.calibrateCryptoIterations(10_000));
+        // Very slow first call still runs at least once
+        assertEquals(1, startupWarmup.calibrateCryptoIterations(5_000_000));
+        // Very fast calls are capped
+        assertEquals(200, startupWarmup.calibrateCryptoIterations(0));
+    }
+}
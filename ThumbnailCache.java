@@ -0,0 +1,68 @@
+package com.thanhtam.backend.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of encoded thumbnails bounded by total bytes rather than entry count, so a few
+ * large images cannot push the heap past the budget.
+ */
+class ThumbnailCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+    private long hits;
+    private long misses;
+
+    ThumbnailCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized byte[] get(String key) {
+        byte[] value = entries.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    synchronized void put(String key, byte[] value) {
+        if (value.length > maxBytes) {
+            return;
+        }
+        byte[] previous = entries.put(key, value);
+        if (previous != null) {
+            currentBytes -= previous.length;
+        }
+        currentBytes += value.length;
+        Iterator<Map.Entry<String, byte[]>> eldest = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, byte[]> entry = eldest.next();
+            currentBytes -= entry.getValue().length;
+            eldest.remove();
+        }
+    }
+
+    synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,245 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.Role;
+import com.thanhtam.backend.entity.User;
+import com.thanhtam.backend.ultilities.ERole;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set-based bulk updates of role links and intakes.
+ *
+ * Each operation runs one SQL statement per chunk of ids instead of loading and saving every
+ * {@link User}. Granting follows the role implication of {@code createUser}: an admin is also
+ * a lecturer and a student, a lecturer is also a student. Revoking only removes the named role,
+ * so taking away the student role does not demote a lecturer or an admin. Afterwards the
+ * persistence context is cleared, the affected users are evicted from the second-level cache
+ * and a {@link UsersChangedEvent} is published. Role changes are audited per user through
+ * {@link AuditService#recordRoleChange}, from the link rows read before and after each chunk.
+ */
+@Service
+public class UserBulkService {
+
+    private static final String USERS_TABLE = "users";
+    private static final String USER_ROLES_TABLE = "user_roles";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final RoleService roleService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuditService auditService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.bulk.chunk-size:500}")
+    private int chunkSize = 500;
+
+    @Autowired
+    public UserBulkService(JdbcTemplate jdbcTemplate, RoleService roleService,
+                           ApplicationEventPublisher eventPublisher, AuditService auditService) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.roleService = roleService;
+        this.eventPublisher = eventPublisher;
+        this.auditService = auditService;
+    }
+
+    @PostConstruct
+    void checkChunkSize() {
+        if (chunkSize <= 0) {
+            throw new IllegalStateException("app.bulk.chunk-size must be positive, was " + chunkSize);
+        }
+    }
+
+    /**
+     * Grants {@code role} and every role it implies to the given users.
+     *
+     * @return number of role links inserted
+     */
+    @Transactional
+    public int assignRole(Collection<Long> userIds, ERole role) {
+        Set<ERole> granted = impliedBy(role);
+        String sql = "INSERT INTO " + USER_ROLES_TABLE + " (user_id, role_id) "
+                + "SELECT u.id, :roleId FROM " + USERS_TABLE + " u WHERE u.id IN (:ids) "
+                + "AND NOT EXISTS (SELECT 1 FROM " + USER_ROLES_TABLE + " ur "
+                + "WHERE ur.user_id = u.id AND ur.role_id = :roleId)";
+        return forEachRole(userIds, granted, sql);
+    }
+
+    /**
+     * Removes {@code role}, and only that role, from the given users.
+     *
+     * @return number of role links deleted
+     */
+    @Transactional
+    public int revokeRole(Collection<Long> userIds, ERole role) {
+        if (role == null) {
+            throw new IllegalArgumentException("role is required");
+        }
+        Set<ERole> revoked = EnumSet.of(role);
+        String sql = "DELETE FROM " + USER_ROLES_TABLE + " WHERE role_id = :roleId AND user_id IN (:ids)";
+        return forEachRole(userIds, revoked, sql);
+    }
+
+    /**
+     * Moves the given users to {@code intakeId}; {@code null} detaches them from any intake.
+     *
+     * @return number of users updated
+     */
+    @Transactional
+    public int moveToIntake(Collection<Long> userIds, Long intakeId) {
+        List<Long> ids = distinct(userIds);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        beforeBulk();
+        String sql = "UPDATE " + USERS_TABLE + " SET intake_id = :intakeId WHERE id IN (:ids)";
+        int updated = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("intakeId", intakeId);
+            params.put("ids", chunk);
+            updated += jdbcTemplate.update(sql, params);
+        }
+        afterBulk(ids);
+        return updated;
+    }
+
+    /**
+     * Moves every user of intake {@code fromIntakeId} to {@code toIntakeId}.
+     *
+     * @return number of users updated
+     */
+    @Transactional
+    public int moveIntake(Long fromIntakeId, Long toIntakeId) {
+        if (fromIntakeId == null) {
+            throw new IllegalArgumentException("fromIntakeId is required");
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("fromIntakeId", fromIntakeId);
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM " + USERS_TABLE + " WHERE intake_id = :fromIntakeId", params, Long.class);
+        return moveToIntake(ids, toIntakeId);
+    }
+
+    private int forEachRole(Collection<Long> userIds, Set<ERole> roles, String sql) {
+        List<Long> ids = distinct(userIds);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Long> roleIds = new ArrayList<>();
+        for (ERole name : roles) {
+            Role role = roleService.findByName(name)
+                    .orElseThrow(() -> new IllegalStateException("Role not found: " + name));
+            roleIds.add(role.getId());
+        }
+        Map<Long, Role> rolesById = new HashMap<>();
+        for (ERole name : ERole.values()) {
+            roleService.findByName(name).ifPresent(role -> rolesById.put(role.getId(), role));
+        }
+        beforeBulk();
+        int changed = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            Map<Long, Set<Role>> before = currentRoles(chunk, rolesById);
+            for (Long roleId : roleIds) {
+                Map<String, Object> params = new HashMap<>();
+                params.put("roleId", roleId);
+                params.put("ids", chunk);
+                changed += jdbcTemplate.update(sql, params);
+            }
+            Map<Long, Set<Role>> after = currentRoles(chunk, rolesById);
+            for (Long id : chunk) {
+                auditService.recordRoleChange(id, before.get(id), after.get(id));
+            }
+        }
+        afterBulk(ids);
+        return changed;
+    }
+
+    /** Role sets of the given users as stored in the link table; users without roles are absent. */
+    private Map<Long, Set<Role>> currentRoles(List<Long> ids, Map<Long, Role> rolesById) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("ids", ids);
+        List<long[]> links = jdbcTemplate.query(
+                "SELECT user_id, role_id FROM " + USER_ROLES_TABLE + " WHERE user_id IN (:ids)", params,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        Map<Long, Set<Role>> roles = new HashMap<>();
+        for (long[] link : links) {
+            Role role = rolesById.get(link[1]);
+            if (role != null) {
+                roles.computeIfAbsent(link[0], id -> new HashSet<>()).add(role);
+            }
+        }
+        return roles;
+    }
+
+    private void beforeBulk() {
+        // Pending entity changes must reach the database before the statements run.
+        if (entityManager != null) {
+            entityManager.flush();
+        }
+    }
+
+    private void afterBulk(List<Long> ids) {
+        if (entityManager != null) {
+            entityManager.clear();
+            for (Long id : ids) {
+                entityManager.getEntityManagerFactory().getCache().evict(User.class, id);
+            }
+        }
+        eventPublisher.publishEvent(new UsersChangedEvent(ids));
+    }
+
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + chunkSize)));
+        }
+        return chunks;
+    }
+
+    private static List<Long> distinct(Collection<Long> userIds) {
+        if (userIds == null) {
+            throw new IllegalArgumentException("userIds is required");
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long id : userIds) {
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /** The role itself plus every role it implies. */
+    static Set<ERole> impliedBy(ERole role) {
+        if (role == null) {
+            throw new IllegalArgumentException("role is required");
+        }
+        switch (role) {
+            case ROLE_ADMIN:
+                return EnumSet.of(ERole.ROLE_ADMIN, ERole.ROLE_LECTURER, ERole.ROLE_STUDENT);
+            case ROLE_LECTURER:
+                return EnumSet.of(ERole.ROLE_LECTURER, ERole.ROLE_STUDENT);
+            default:
+                return EnumSet.of(role);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.Intake;
+import com.thanhtam.backend.entity.Role;
+import com.thanhtam.backend.entity.User;
+import com.thanhtam.backend.repository.IntakeRepository;
+import com.thanhtam.backend.repository.RoleRepository;
+import com.thanhtam.backend.repository.UserRepository;
+import com.thanhtam.backend.ultilities.ERole;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+@SpringBootTest(properties = "app.warmup.enabled=false")
+@RunWith(SpringRunner.class)
+@Transactional
+@Rollback
+public class UserBulkServiceTest {
+
+    @Autowired
+    private UserBulkService userBulkService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleService roleService;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private IntakeRepository intakeRepository;
+    @Autowired
+    private AuditService auditService;
+
+    private User user1;
+    private User user2;
+    private Intake intakeA;
+    private Intake intakeB;
+
+    @Before
+    public void setUp() {
+        Role studentRole = roleService.findByName(ERole.ROLE_STUDENT)
+                .orElseGet(() -> roleRepository.save(new Role(null, ERole.ROLE_STUDENT)));
+        roleService.findByName(ERole.ROLE_LECTURER)
+                .orElseGet(() -> roleRepository.save(new Role(null, ERole.ROLE_LECTURER)));
+        roleService.findByName(ERole.ROLE_ADMIN)
+                .orElseGet(() -> roleRepository.save(new Role(null, ERole.ROLE_ADMIN)));
+
+        intakeA = new Intake();
+        intakeA.setName("Intake A");
+        intakeA.setIntakeCode("IA" + System.currentTimeMillis());
+        intakeRepository.save(intakeA);
+
+        intakeB = new Intake();
+        intakeB.setName("Intake B");
+        intakeB.setIntakeCode("IB" + System.currentTimeMillis());
+        intakeRepository.save(intakeB);
+
+        user1 = saveUser("bulkuser1", studentRole, intakeA);
+        user2 = saveUser("bulkuser2", studentRole, intakeA);
+    }
+
+    private User saveUser(String username, Role role, Intake intake) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("password");
+        user.setDeleted(false);
+        Set<Role> roles = new HashSet<>();
+        roles.add(role);
+        user.setRoles(roles);
+        user.setIntake(intake);
+        return userRepository.saveAndFlush(user);
+    }
+
+    private boolean hasRole(Long userId, ERole role) {
+        return userRepository.findById(userId).get().getRoles().stream()
+                .anyMatch(r -> r.getName() == role);
+    }
+
+    //TC01
+    @Test
+    public void assignRole_Lecturer_ShouldAddLecturerAndKeepStudent() {
+        // Act
+        int inserted = userBulkService.assignRole(Arrays.asList(user1.getId(), user2.getId()), ERole.ROLE_LECTURER);
+
+        // Assert
+        assertEquals(2, inserted);
+        assertTrue(hasRole(user1.getId(), ERole.ROLE_LECTURER));
+        assertTrue(hasRole(user2.getId(), ERole.ROLE_LECTURER));
+        assertTrue(hasRole(user1.getId(), ERole.ROLE_STUDENT));
+    }
+
+    //TC02
+    @Test
+    public void assignRole_Admin_ShouldAssignAllRoles() {
+        // Act
+        userBulkService.assignRole(Collections.singletonList(user1.getId()), ERole.ROLE_ADMIN);
+
+        // Assert
+        assertEquals(3, userRepository.findById(user1.getId()).get().getRoles().size());
+        assertFalse(hasRole(user2.getId(), ERole.ROLE_ADMIN));
+    }
+
+    //TC03
+    @Test
+    public void assignRole_Twice_ShouldNotDuplicateLinks() {
+        // Arrange
+        List<Long> ids = Collections.singletonList(user1.getId());
+        userBulkService.assignRole(ids, ERole.ROLE_LECTURER);
+
+        // Act
+        int inserted = userBulkService.assignRole(ids, ERole.ROLE_LECTURER);
+
+        // Assert
+        assertEquals(0, inserted);
+        assertEquals(2, userRepository.findById(user1.getId()).get().getRoles().size());
+    }
+
+    //TC04
+    @Test
+    public void revokeRole_Lecturer_ShouldOnlyRevokeLecturer() {
+        // Arrange
+        List<Long> ids = Collections.singletonList(user1.getId());
+        userBulkService.assignRole(ids, ERole.ROLE_ADMIN);
+
+        // Act
+        int deleted = userBulkService.revokeRole(ids, ERole.ROLE_LECTURER);
+
+        // Assert
+        assertEquals(1, deleted);
+        assertFalse(hasRole(user1.getId(), ERole.ROLE_LECTURER));
+        assertTrue(hasRole(user1.getId(), ERole.ROLE_ADMIN));
+        assertTrue(hasRole(user1.getId(), ERole.ROLE_STUDENT));
+    }
+
+    //TC05
+    @Test
+    public void moveIntake_ShouldMoveWholeClass() {
+        // Act
+        int moved = userBulkService.moveIntake(intakeA.getId(), intakeB.getId());
+
+        // Assert
+        assertEquals(2, moved);
+        assertEquals(intakeB.getId(), userRepository.findById(user1.getId()).get().getIntake().getId());
+        assertEquals(intakeB.getId(), userRepository.findById(user2.getId()).get().getIntake().getId());
+    }
+
+    //TC06
+    @Test
+    public void moveToIntake_EmptyIds_ShouldDoNothing() {
+        assertEquals(0, userBulkService.moveToIntake(Collections.<Long>emptyList(), intakeB.getId()));
+    }
+
+    //TC07
+    @Test(expected = IllegalArgumentException.class)
+    public void assignRole_NullIds_ShouldThrow() {
+        userBulkService.assignRole(null, ERole.ROLE_LECTURER);
+    }
+
+    //TC08
+    @Test
+    public void revokeRole_Student_ShouldKeepLecturer() {
+        // Arrange
+        List<Long> ids = Collections.singletonList(user1.getId());
+        userBulkService.assignRole(ids, ERole.ROLE_LECTURER);
+
+        // Act
+        userBulkService.revokeRole(ids, ERole.ROLE_STUDENT);
+
+        // Assert
+        assertFalse(hasRole(user1.getId(), ERole.ROLE_STUDENT));
+        assertTrue(hasRole(user1.getId(), ERole.ROLE_LECTURER));
+    }
+
+    //TC09
+    @Test(expected = IllegalStateException.class)
+    public void checkChunkSize_NotPositive_ShouldThrow() {
+        // Arrange
+        UserBulkService target = AopTestUtils.getTargetObject(userBulkService);
+        ReflectionTestUtils.setField(target, "chunkSize", 0);
+        try {
+            // Act
+            target.checkChunkSize();
+        } finally {
+            ReflectionTestUtils.setField(target, "chunkSize", 500);
+        }
+    }
+
+    //TC10
+    @Test
+    public void assignAndRevokeRole_MoreIdsThanChunkSize_ShouldCoverEveryChunk() {
+        // Arrange
+        Role studentRole = roleService.findByName(ERole.ROLE_STUDENT).get();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            ids.add(saveUser("chunkuser" + i, studentRole, intakeA).getId());
+        }
+        UserBulkService target = AopTestUtils.getTargetObject(userBulkService);
+        ReflectionTestUtils.setField(target, "chunkSize", 2);
+        try {
+            // Act
+            int inserted = userBulkService.assignRole(ids, ERole.ROLE_LECTURER);
+
+            // Assert
+            assertEquals(5, inserted);
+            for (Long id : ids) {
+                assertTrue(hasRole(id, ERole.ROLE_LECTURER));
+            }
+
+            // Act
+            int deleted = userBulkService.revokeRole(ids, ERole.ROLE_LECTURER);
+
+            // Assert
+            assertEquals(5, deleted);
+            for (Long id : ids) {
+                assertFalse(hasRole(id, ERole.ROLE_LECTURER));
+                assertTrue(hasRole(id, ERole.ROLE_STUDENT));
+            }
+        } finally {
+            ReflectionTestUtils.setField(target, "chunkSize", 500);
+        }
+    }
+
+    //TC11
+    @Test
+    public void assignAndRevokeRole_ShouldAuditEachUsersRoleChange() {
+        // Arrange
+        long from = System.currentTimeMillis();
+        List<Long> ids = Arrays.asList(user1.getId(), user2.getId());
+
+        // Act
+        userBulkService.assignRole(ids, ERole.ROLE_LECTURER);
+        userBulkService.revokeRole(Collections.singletonList(user1.getId()), ERole.ROLE_STUDENT);
+
+        // Assert
+        List<AuditRecord> trail1 = auditService.findByUser(user1.getId(), from, Long.MAX_VALUE);
+        assertEquals(2, trail1.size());
+        assertEquals(AuditRecord.ROLES_CHANGED, trail1.get(0).getAction());
+        assertEquals("ROLE_STUDENT", trail1.get(0).getOldValue());
+        assertEquals("ROLE_LECTURER,ROLE_STUDENT", trail1.get(0).getNewValue());
+        assertEquals("ROLE_LECTURER,ROLE_STUDENT", trail1.get(1).getOldValue());
+        assertEquals("ROLE_LECTURER", trail1.get(1).getNewValue());
+        List<AuditRecord> trail2 = auditService.findByUser(user2.getId(), from, Long.MAX_VALUE);
+        assertEquals(1, trail2.size());
+        assertEquals("ROLE_LECTURER,ROLE_STUDENT", trail2.get(0).getNewValue());
+    }
+}
@@ -0,0 +1,389 @@
+package com.thanhtam.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Dumps and restores the user directory (intakes, profiles, users with their password hashes,
+ * role links) in the {@link SnapshotFormat} binary format.
+ *
+ * Dump reads all tables in one read-only REPEATABLE READ transaction, so the snapshot is
+ * consistent: no user without their profile or role links. Rows go through a forward-only
+ * cursor straight into the output. Whether the driver really streams depends on
+ * {@code app.snapshot.fetch-size}: MySQL Connector/J buffers the whole result unless the URL
+ * sets {@code useCursorFetch=true} or the fetch size is {@code -2147483648}
+ * ({@code Integer.MIN_VALUE}, row-by-row streaming); other drivers honour the fetch size.
+ *
+ * Restore runs in one transaction and refuses to start unless the target tables are empty,
+ * so it either loads the whole snapshot or nothing. Checksummed blocks are decoded on a pool
+ * of workers and written in order with JDBC batch inserts on the transaction's connection,
+ * bypassing the ORM and password hashing. Tables are restored in dependency order. Columns
+ * are matched by name: columns missing in the target schema are skipped, new target columns
+ * get their default. Role links are stored by role name and resolved against the target's
+ * roles table, so role ids may differ between environments. The restored ids are announced
+ * with a {@link UsersChangedEvent} and a {@link ProfilesChangedEvent}.
+ */
+@Service
+public class UserDirectorySnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectorySnapshotService.class);
+
+    static final String SECTION_INTAKES = "intakes";
+    static final String SECTION_PROFILES = "profiles";
+    static final String SECTION_USERS = "users";
+    static final String SECTION_USER_ROLES = "user_roles";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingTemplate;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.snapshot.table.intake:intake}")
+    private String intakeTable = "intake";
+
+    @Value("${app.snapshot.table.profile:profile}")
+    private String profileTable = "profile";
+
+    @Value("${app.snapshot.table.users:users}")
+    private String usersTable = "users";
+
+    @Value("${app.snapshot.table.user-roles:user_roles}")
+    private String userRolesTable = "user_roles";
+
+    @Value("${app.snapshot.table.roles:roles}")
+    private String rolesTable = "roles";
+
+    @Value("${app.snapshot.block-rows:2000}")
+    private int blockRows = 2000;
+
+    @Value("${app.snapshot.restore-threads:4}")
+    private int restoreThreads = 4;
+
+    @Autowired
+    public UserDirectorySnapshotService(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                                        PlatformTransactionManager transactionManager,
+                                        ApplicationEventPublisher eventPublisher,
+                                        @Value("${app.snapshot.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingTemplate = new JdbcTemplate(dataSource);
+        this.streamingTemplate.setFetchSize(fetchSize);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Writes a consistent snapshot to {@code out}. The stream is not closed.
+     *
+     * @return rows written per section
+     */
+    public Map<String, Long> dump(final OutputStream out) throws IOException {
+        try {
+            return readTransaction.execute(status -> {
+                try {
+                    return dumpTables(out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Map<String, Long> dumpTables(OutputStream out) throws IOException {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        SnapshotFormat.Writer writer = new SnapshotFormat.Writer(out, blockRows);
+        counts.put(SECTION_INTAKES, dumpQuery(writer, SECTION_INTAKES, "SELECT * FROM " + intakeTable + " ORDER BY id"));
+        counts.put(SECTION_PROFILES, dumpQuery(writer, SECTION_PROFILES, "SELECT * FROM " + profileTable + " ORDER BY id"));
+        counts.put(SECTION_USERS, dumpQuery(writer, SECTION_USERS, "SELECT * FROM " + usersTable + " ORDER BY id"));
+        counts.put(SECTION_USER_ROLES, dumpQuery(writer, SECTION_USER_ROLES,
+                "SELECT ur.user_id AS user_id, r.name AS role_name FROM " + userRolesTable + " ur JOIN "
+                        + rolesTable + " r ON r.id = ur.role_id ORDER BY ur.user_id"));
+        writer.close();
+        logger.info("User directory snapshot written: {}", counts);
+        return counts;
+    }
+
+    /**
+     * Loads a snapshot from {@code in} into empty tables, all or nothing.
+     *
+     * @return rows inserted per section
+     * @throws IllegalStateException if a target table already holds rows
+     */
+    public Map<String, Long> restore(final InputStream in) throws IOException {
+        try {
+            return writeTransaction.execute(status -> {
+                try {
+                    return restoreTables(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Map<String, Long> restoreTables(InputStream in) throws IOException {
+        for (String table : new String[]{intakeTable, profileTable, usersTable, userRolesTable}) {
+            Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+            if (rows != null && rows > 0) {
+                throw new IllegalStateException("Restore needs empty tables, " + table + " has " + rows + " rows");
+            }
+        }
+        SnapshotFormat.Reader reader = new SnapshotFormat.Reader(in);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        List<Long> userIds = new ArrayList<>();
+        List<Long> profileIds = new ArrayList<>();
+        ExecutorService workers = Executors.newFixedThreadPool(restoreThreads);
+        try {
+            String section;
+            while ((section = reader.nextSection()) != null) {
+                RowInserter inserter = inserterFor(section, reader.getColumns());
+                if (inserter == null) {
+                    logger.warn("Skipping unknown snapshot section {}", section);
+                    continue;
+                }
+                List<Long> ids = SECTION_USERS.equals(section) ? userIds
+                        : SECTION_PROFILES.equals(section) ? profileIds : null;
+                counts.put(section, restoreSection(reader, inserter, workers,
+                        ids == null ? -1 : reader.getColumns().indexOf("id"), ids));
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        eventPublisher.publishEvent(new ProfilesChangedEvent(profileIds));
+        eventPublisher.publishEvent(new UsersChangedEvent(userIds));
+        logger.info("User directory snapshot restored (format v{}): {}", reader.getVersion(), counts);
+        return counts;
+    }
+
+    private long dumpQuery(final SnapshotFormat.Writer writer, String section, String sql) throws IOException {
+        try {
+            return streamingTemplate.query(sql, (ResultSetExtractor<Long>) rs -> {
+                try {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    List<String> columns = new ArrayList<>();
+                    for (int i = 1; i <= meta.getColumnCount(); i++) {
+                        columns.add(meta.getColumnLabel(i).toLowerCase(Locale.ROOT));
+                    }
+                    writer.beginSection(section, columns);
+                    while (rs.next()) {
+                        Object[] row = new Object[columns.size()];
+                        for (int i = 0; i < row.length; i++) {
+                            row[i] = readColumn(rs, meta, i + 1);
+                        }
+                        writer.writeRow(row);
+                    }
+                    return writer.endSection();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object readColumn(ResultSet rs, ResultSetMetaData meta, int index) throws SQLException {
+        Object value;
+        switch (meta.getColumnType(index)) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                value = rs.getBoolean(index);
+                break;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                value = rs.getLong(index);
+                break;
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                value = rs.getTimestamp(index);
+                break;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                value = rs.getBytes(index);
+                break;
+            default:
+                value = rs.getObject(index);
+                if (value != null && !(value instanceof Number)) {
+                    value = rs.getString(index);
+                }
+        }
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * Decodes blocks on the workers and inserts them in order on the calling thread, which
+     * owns the restore transaction. Ids found at {@code idIndex} are added to {@code ids}.
+     */
+    private long restoreSection(SnapshotFormat.Reader reader, RowInserter inserter, ExecutorService workers,
+                                int idIndex, List<Long> ids) throws IOException {
+        // Bounded read-ahead: decoded blocks are only held for the blocks in flight.
+        int maxInFlight = restoreThreads * 2;
+        Deque<Future<List<Object[]>>> pending = new ArrayDeque<>();
+        long inserted = 0;
+        SnapshotFormat.Block block;
+        while ((block = reader.nextBlock()) != null) {
+            pending.addLast(workers.submit(block::decode));
+            if (pending.size() >= maxInFlight) {
+                inserted += insert(inserter, await(pending.removeFirst()), idIndex, ids);
+            }
+        }
+        while (!pending.isEmpty()) {
+            inserted += insert(inserter, await(pending.removeFirst()), idIndex, ids);
+        }
+        return inserted;
+    }
+
+    private static int insert(RowInserter inserter, List<Object[]> rows, int idIndex, List<Long> ids) {
+        if (idIndex >= 0) {
+            for (Object[] row : rows) {
+                if (row[idIndex] instanceof Number) {
+                    ids.add(((Number) row[idIndex]).longValue());
+                }
+            }
+        }
+        return inserter.insert(rows);
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Restore interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Restore failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private interface RowInserter {
+        int insert(List<Object[]> rows);
+    }
+
+    private RowInserter inserterFor(String section, List<String> snapshotColumns) {
+        switch (section) {
+            case SECTION_INTAKES:
+                return tableInserter(intakeTable, snapshotColumns);
+            case SECTION_PROFILES:
+                return tableInserter(profileTable, snapshotColumns);
+            case SECTION_USERS:
+                return tableInserter(usersTable, snapshotColumns);
+            case SECTION_USER_ROLES:
+                return userRoleInserter(snapshotColumns);
+            default:
+                return null;
+        }
+    }
+
+    private RowInserter tableInserter(String table, List<String> snapshotColumns) {
+        List<String> targetColumns = jdbcTemplate.query("SELECT * FROM " + table + " WHERE 1 = 0",
+                (ResultSetExtractor<List<String>>) rs -> {
+                    List<String> names = new ArrayList<>();
+                    ResultSetMetaData meta = rs.getMetaData();
+                    for (int i = 1; i <= meta.getColumnCount(); i++) {
+                        names.add(meta.getColumnLabel(i).toLowerCase(Locale.ROOT));
+                    }
+                    return names;
+                });
+        final List<Integer> sourceIndexes = new ArrayList<>();
+        StringBuilder columns = new StringBuilder();
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < snapshotColumns.size(); i++) {
+            String column = snapshotColumns.get(i);
+            if (!targetColumns.contains(column)) {
+                logger.warn("Column {}.{} no longer exists, dropping it from the restore", table, column);
+                continue;
+            }
+            if (columns.length() > 0) {
+                columns.append(", ");
+                placeholders.append(", ");
+            }
+            columns.append(column);
+            placeholders.append('?');
+            sourceIndexes.add(i);
+        }
+        final String sql = "INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ")";
+        return rows -> {
+            List<Object[]> args = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                Object[] values = new Object[sourceIndexes.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = row[sourceIndexes.get(i)];
+                }
+                args.add(values);
+            }
+            jdbcTemplate.batchUpdate(sql, args);
+            return rows.size();
+        };
+    }
+
+    private RowInserter userRoleInserter(List<String> snapshotColumns) {
+        final int userIdIndex = snapshotColumns.indexOf("user_id");
+        final int roleNameIndex = snapshotColumns.indexOf("role_name");
+        if (userIdIndex < 0 || roleNameIndex < 0) {
+            throw new IllegalStateException("Role link section needs user_id and role_name columns");
+        }
+        final Map<String, Long> roleIds = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM " + rolesTable, (ResultSetExtractor<Void>) rs -> {
+            while (rs.next()) {
+                roleIds.put(rs.getString("name"), rs.getLong("id"));
+            }
+            return null;
+        });
+        final String sql = "INSERT INTO " + userRolesTable + " (user_id, role_id) VALUES (?, ?)";
+        return rows -> {
+            List<Object[]> args = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                Long roleId = roleIds.get(String.valueOf(row[roleNameIndex]));
+                if (roleId == null) {
+                    throw new IllegalStateException("Role " + row[roleNameIndex] + " does not exist in the target");
+                }
+                args.add(new Object[]{row[userIdIndex], roleId});
+            }
+            jdbcTemplate.batchUpdate(sql, args);
+            return rows.size();
+        };
+    }
+}
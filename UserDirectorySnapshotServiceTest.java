@@ -0,0 +1,140 @@
+package com.thanhtam.backend.service;
+
+import com.thanhtam.backend.entity.Intake;
+import com.thanhtam.backend.entity.Profile;
+import com.thanhtam.backend.entity.Role;
+import com.thanhtam.backend.entity.User;
+import com.thanhtam.backend.repository.IntakeRepository;
+import com.thanhtam.backend.repository.ProfileRepository;
+import com.thanhtam.backend.repository.RoleRepository;
+import com.thanhtam.backend.repository.UserRepository;
+import com.thanhtam.backend.ultilities.ERole;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Restore needs empty tables, so the tests wipe the directory. They run against their own
+ * embedded database and only ever inside the rolled-back test transaction, so no other test
+ * class sees the deletes.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:snapshot;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.warmup.enabled=false",
+        "app.scheduling.enabled=false"
+})
+@RunWith(SpringRunner.class)
+@Transactional
+@Rollback
+public class UserDirectorySnapshotServiceTest {
+
+    @Autowired
+    private UserDirectorySnapshotService snapshotService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProfileRepository profileRepository;
+    @Autowired
+    private IntakeRepository intakeRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private RoleService roleService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private User user;
+
+    @Before
+    public void setUp() {
+        Role studentRole = roleService.findByName(ERole.ROLE_STUDENT)
+                .orElseGet(() -> roleRepository.save(new Role(null, ERole.ROLE_STUDENT)));
+
+        Intake intake = new Intake();
+        intake.setName("Snapshot intake");
+        intake.setIntakeCode("SI" + System.currentTimeMillis());
+        intakeRepository.saveAndFlush(intake);
+
+        Profile profile = new Profile();
+        profile.setFirstName("Thanh");
+        profile.setLastName("Tam");
+        profileRepository.saveAndFlush(profile);
+
+        user = new User();
+        user.setUsername("snapshotuser");
+        user.setEmail("snapshotuser@example.com");
+        user.setPassword("$2a$10$alreadyhashed");
+        user.setDeleted(false);
+        user.setRoles(Collections.singleton(studentRole));
+        user.setIntake(intake);
+        user.setProfile(profile);
+        userRepository.saveAndFlush(user);
+    }
+
+    private void emptyDirectory() {
+        assertTrue("emptyDirectory must run inside the test transaction", TestTransaction.isActive());
+        jdbcTemplate.update("DELETE FROM user_roles");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("DELETE FROM profile");
+        jdbcTemplate.update("DELETE FROM intake");
+        entityManager.clear();
+    }
+
+    //TC01
+    @Test
+    public void dumpThenRestore_ShouldBringBackUsersWithProfilesAndRoles() throws IOException {
+        // Arrange
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        Map<String, Long> dumped = snapshotService.dump(snapshot);
+        emptyDirectory();
+
+        // Act
+        Map<String, Long> restored = snapshotService.restore(new ByteArrayInputStream(snapshot.toByteArray()));
+
+        // Assert
+        assertEquals(dumped, restored);
+        entityManager.clear();
+        User back = userRepository.findById(user.getId()).get();
+        assertEquals("snapshotuser", back.getUsername());
+        assertEquals("$2a$10$alreadyhashed", back.getPassword());
+        assertEquals("Thanh", back.getProfile().getFirstName());
+        assertEquals(user.getIntake().getIntakeCode(), back.getIntake().getIntakeCode());
+        assertEquals(1, back.getRoles().size());
+        assertEquals(ERole.ROLE_STUDENT, back.getRoles().iterator().next().getName());
+    }
+
+    //TC02
+    @Test(expected = IllegalStateException.class)
+    public void restore_TargetNotEmpty_ShouldRefuse() throws IOException {
+        // Arrange
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        snapshotService.dump(snapshot);
+
+        // Act
+        snapshotService.restore(new ByteArrayInputStream(snapshot.toByteArray()));
+    }
+}
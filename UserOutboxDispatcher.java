@@ -0,0 +1,213 @@
+package com.thanhtam.backend.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background dispatcher for the user outbox.
+ *
+ * Pending rows are read in id order, in batches, and handed to every matching
+ * {@link UserOutboxHandler}. Events of the same user are delivered strictly in order: a
+ * batch only holds the oldest pending event of each user whose retry time has come, so
+ * once an event of a user fails the remaining events of that user wait behind it while
+ * other users keep flowing. Draining repeats until a batch delivers nothing.
+ *
+ * Several instances may dispatch at once. Before its handlers run, an event is claimed by
+ * moving its {@code next_attempt_at} forward by {@code app.outbox.claim-lease-ms}, guarded
+ * by the value that was read, so only one instance wins and the others skip it. The winner
+ * then marks it done or schedules the retry. If the winner dies, the lease runs out and the
+ * event becomes due again. Delivery is therefore at least once, and handlers that outlive
+ * the lease may see an event twice.
+ *
+ * Lag, throughput and the delivery counters are published as {@code user.outbox.*}
+ * meters, which the actuator picks up through {@link MeterBinder}.
+ */
+@Component
+public class UserOutboxDispatcher implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserOutboxDispatcher.class);
+
+    // Only the oldest pending event of each user is eligible, and only once it is due, so
+    // events waiting for a retry never fill the batch and hold back other users.
+    private static final String SELECT_PENDING_SQL = "SELECT o.id, o.user_id, o.event_type, o.payload, o.attempts, "
+            + "o.created_at, o.next_attempt_at FROM user_outbox o WHERE o.status = 'PENDING' "
+            + "AND o.next_attempt_at <= ? AND NOT EXISTS (SELECT 1 FROM user_outbox p "
+            + "WHERE p.user_id = o.user_id AND p.status = 'PENDING' AND p.id < o.id) ORDER BY o.id LIMIT ?";
+    private static final String CLAIM_SQL = "UPDATE user_outbox SET next_attempt_at = ? "
+            + "WHERE id = ? AND status = 'PENDING' AND next_attempt_at = ?";
+    private static final String MARK_DONE_SQL = "UPDATE user_outbox SET status = 'DONE', attempts = ? WHERE id = ?";
+    private static final String MARK_RETRY_SQL = "UPDATE user_outbox SET attempts = ?, next_attempt_at = ?, "
+            + "last_error = ? WHERE id = ?";
+    private static final String MARK_FAILED_SQL = "UPDATE user_outbox SET status = 'FAILED', attempts = ?, "
+            + "last_error = ? WHERE id = ?";
+    private static final String OLDEST_PENDING_SQL = "SELECT MIN(created_at) FROM user_outbox WHERE status = 'PENDING'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<UserOutboxHandler> handlers;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${app.outbox.max-attempts:8}")
+    private int maxAttempts = 8;
+
+    @Value("${app.outbox.base-backoff-ms:1000}")
+    private long baseBackoffMs = 1000;
+
+    @Value("${app.outbox.claim-lease-ms:60000}")
+    private long claimLeaseMs = 60000;
+
+    private final AtomicLong dispatchedCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private volatile long lagMillis;
+    private volatile double throughputPerSecond;
+
+    @Autowired
+    public UserOutboxDispatcher(JdbcTemplate jdbcTemplate, List<UserOutboxHandler> handlers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.handlers = handlers;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void poll() {
+        // Keep draining while batches make progress, so a backlog is cleared in one run.
+        while (drainBatch() > 0) {
+            // continue
+        }
+    }
+
+    /**
+     * Processes at most one batch of pending events.
+     *
+     * @return the number of events that left the pending state
+     */
+    public int drainBatch() {
+        long startedAt = System.currentTimeMillis();
+        List<UserOutboxEvent> events = jdbcTemplate.query(SELECT_PENDING_SQL, (rs, rowNum) -> new UserOutboxEvent(
+                rs.getLong("id"),
+                rs.getLong("user_id"),
+                rs.getString("event_type"),
+                rs.getString("payload"),
+                rs.getInt("attempts"),
+                rs.getLong("created_at"),
+                rs.getLong("next_attempt_at")), startedAt, batchSize);
+
+        int delivered = 0;
+        for (UserOutboxEvent event : events) {
+            if (claim(event, startedAt) && deliver(event)) {
+                delivered++;
+            }
+        }
+
+        long elapsed = Math.max(1, System.currentTimeMillis() - startedAt);
+        if (!events.isEmpty()) {
+            throughputPerSecond = delivered * 1000.0 / elapsed;
+        }
+        refreshLag();
+        return delivered;
+    }
+
+    /** True if this instance now owns the event; false if another one claimed or handled it first. */
+    boolean claim(UserOutboxEvent event, long now) {
+        return jdbcTemplate.update(CLAIM_SQL, now + claimLeaseMs, event.getId(), event.getNextAttemptAt()) == 1;
+    }
+
+    private boolean deliver(UserOutboxEvent event) {
+        int attempts = event.getAttempts() + 1;
+        try {
+            for (UserOutboxHandler handler : matchingHandlers(event.getEventType())) {
+                handler.handle(event);
+            }
+            jdbcTemplate.update(MARK_DONE_SQL, attempts, event.getId());
+            dispatchedCount.incrementAndGet();
+            return true;
+        } catch (Exception e) {
+            String error = truncate(e.toString());
+            if (attempts >= maxAttempts) {
+                logger.error("Outbox event {} for user {} failed permanently: {}", event.getId(), event.getUserId(), error);
+                jdbcTemplate.update(MARK_FAILED_SQL, attempts, error, event.getId());
+                failedCount.incrementAndGet();
+                // A dead event no longer holds back the rest of the user's events.
+                return true;
+            }
+            long backoff = baseBackoffMs << Math.min(attempts - 1, 16);
+            logger.warn("Outbox event {} for user {} failed (attempt {}), retrying in {} ms: {}",
+                    event.getId(), event.getUserId(), attempts, backoff, error);
+            jdbcTemplate.update(MARK_RETRY_SQL, attempts, System.currentTimeMillis() + backoff, error, event.getId());
+            retriedCount.incrementAndGet();
+            return false;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("user.outbox.lag", this, UserOutboxDispatcher::getLagMillis)
+                .description("Age of the oldest pending outbox event")
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("user.outbox.throughput", this, UserOutboxDispatcher::getThroughputPerSecond)
+                .description("Outbox events delivered per second during the last non-empty batch")
+                .register(registry);
+        FunctionCounter.builder("user.outbox.dispatched", this, UserOutboxDispatcher::getDispatchedCount)
+                .register(registry);
+        FunctionCounter.builder("user.outbox.retried", this, UserOutboxDispatcher::getRetriedCount)
+                .register(registry);
+        FunctionCounter.builder("user.outbox.failed", this, UserOutboxDispatcher::getFailedCount)
+                .register(registry);
+    }
+
+    private List<UserOutboxHandler> matchingHandlers(String eventType) {
+        List<UserOutboxHandler> matching = new ArrayList<>();
+        for (UserOutboxHandler handler : handlers) {
+            if (handler.supports(eventType)) {
+                matching.add(handler);
+            }
+        }
+        return matching;
+    }
+
+    private void refreshLag() {
+        Long oldest = jdbcTemplate.queryForObject(OLDEST_PENDING_SQL, Long.class);
+        lagMillis = oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 512 ? message.substring(0, 512) : message;
+    }
+
+    /** Age in milliseconds of the oldest event still pending, as of the last run. */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /** Events delivered per second during the last non-empty batch. */
+    public double getThroughputPerSecond() {
+        return throughputPerSecond;
+    }
+
+    public long getDispatchedCount() {
+        return dispatchedCount.get();
+    }
+
+    public long getRetriedCount() {
+        return retriedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+}
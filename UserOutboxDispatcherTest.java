@@ -0,0 +1,169 @@
+package com.thanhtam.backend.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+@SpringBootTest(properties = "app.warmup.enabled=false")
+@RunWith(SpringRunner.class)
+@Transactional
+@Rollback
+@Sql(scripts = "/user-outbox.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+public class UserOutboxDispatcherTest {
+
+    @TestConfiguration
+    static class RecordingHandlerConfig {
+        @Bean
+        public RecordingHandler recordingHandler() {
+            return new RecordingHandler();
+        }
+    }
+
+    static class RecordingHandler implements UserOutboxHandler {
+        final List<Long> handled = new ArrayList<>();
+        final Set<Long> failForUsers = new HashSet<>();
+
+        @Override
+        public boolean supports(String eventType) {
+            return true;
+        }
+
+        @Override
+        public void handle(UserOutboxEvent event) {
+            if (failForUsers.contains(event.getUserId())) {
+                throw new IllegalStateException("mail server down");
+            }
+            handled.add(event.getId());
+        }
+    }
+
+    @Autowired
+    private UserOutboxService userOutboxService;
+
+    @Autowired
+    private UserOutboxDispatcher userOutboxDispatcher;
+
+    @Autowired
+    private RecordingHandler recordingHandler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() {
+        recordingHandler.handled.clear();
+        recordingHandler.failForUsers.clear();
+    }
+
+    //TC01
+    @Test
+    public void drainBatch_ShouldDeliverEventsInInsertionOrder() {
+        // Arrange
+        userOutboxService.enqueue(1L, UserOutboxEvent.USER_CREATED, "{}");
+        userOutboxService.enqueue(1L, UserOutboxEvent.USER_UPDATED, "{}");
+
+        // Act
+        userOutboxDispatcher.poll();
+
+        // Assert
+        assertEquals(2, recordingHandler.handled.size());
+        assertTrue(recordingHandler.handled.get(0) < recordingHandler.handled.get(1));
+        assertEquals(0, userOutboxDispatcher.drainBatch());
+    }
+
+    //TC02
+    @Test
+    public void drainBatch_HandlerFails_ShouldHoldBackLaterEventsOfSameUserOnly() {
+        // Arrange
+        recordingHandler.failForUsers.add(1L);
+        userOutboxService.enqueue(1L, UserOutboxEvent.USER_CREATED, "{}");
+        userOutboxService.enqueue(1L, UserOutboxEvent.PASSWORD_RESET, "{}");
+        userOutboxService.enqueue(2L, UserOutboxEvent.USER_CREATED, "{}");
+
+        // Act
+        int delivered = userOutboxDispatcher.drainBatch();
+
+        // Assert
+        assertEquals(1, delivered);
+        assertEquals(1, recordingHandler.handled.size());
+        assertTrue(userOutboxDispatcher.getRetriedCount() > 0);
+    }
+
+    //TC03
+    @Test(expected = IllegalArgumentException.class)
+    public void enqueue_WithNullUserId_ShouldThrow() {
+        userOutboxService.enqueue(null, UserOutboxEvent.USER_CREATED, "{}");
+    }
+
+    //TC04
+    @Test(expected = IllegalTransactionStateException.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void enqueue_OutsideTransaction_ShouldThrow() {
+        userOutboxService.enqueue(1L, UserOutboxEvent.USER_CREATED, "{}");
+    }
+
+    //TC05
+    @Test
+    public void drainBatch_BatchFullOfEventsInBackoff_ShouldStillDeliverOtherUsers() {
+        // Arrange
+        recordingHandler.failForUsers.add(1L);
+        recordingHandler.failForUsers.add(2L);
+        userOutboxService.enqueue(1L, UserOutboxEvent.USER_CREATED, "{}");
+        userOutboxService.enqueue(2L, UserOutboxEvent.USER_CREATED, "{}");
+        userOutboxService.enqueue(3L, UserOutboxEvent.USER_CREATED, "{}");
+        ReflectionTestUtils.setField(userOutboxDispatcher, "batchSize", 2);
+        try {
+            assertEquals(0, userOutboxDispatcher.drainBatch());
+
+            // Act
+            int delivered = userOutboxDispatcher.drainBatch();
+
+            // Assert
+            assertEquals(1, delivered);
+            assertEquals(1, recordingHandler.handled.size());
+        } finally {
+            ReflectionTestUtils.setField(userOutboxDispatcher, "batchSize", 100);
+        }
+    }
+
+    //TC06
+    @Test
+    public void claim_SameSnapshotTwice_ShouldOnlySucceedOnce() {
+        // Arrange - two instances read the same pending row
+        userOutboxService.enqueue(4L, UserOutboxEvent.USER_CREATED, "{}");
+        UserOutboxEvent event = jdbcTemplate.queryForObject("SELECT id, user_id, event_type, payload, attempts, "
+                + "created_at, next_attempt_at FROM user_outbox WHERE user_id = 4", (rs, rowNum) -> new UserOutboxEvent(
+                rs.getLong("id"), rs.getLong("user_id"), rs.getString("event_type"), rs.getString("payload"),
+                rs.getInt("attempts"), rs.getLong("created_at"), rs.getLong("next_attempt_at")));
+        long now = System.currentTimeMillis();
+
+        // Act
+        boolean first = userOutboxDispatcher.claim(event, now);
+        boolean second = userOutboxDispatcher.claim(event, now);
+
+        // Assert
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(0, userOutboxDispatcher.drainBatch());
+        assertTrue(recordingHandler.handled.isEmpty());
+    }
+}
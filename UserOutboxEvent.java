@@ -0,0 +1,60 @@
+package com.thanhtam.backend.service;
+
+/**
+ * One row of the {@code user_outbox} table: a follow-up action that was recorded
+ * in the same transaction as the user change and is delivered later by
+ * {@link UserOutboxDispatcher}.
+ */
+public class UserOutboxEvent {
+
+    public static final String USER_CREATED = "USER_CREATED";
+    public static final String USER_UPDATED = "USER_UPDATED";
+    public static final String PASSWORD_RESET = "PASSWORD_RESET";
+
+    private final Long id;
+    private final Long userId;
+    private final String eventType;
+    private final String payload;
+    private final int attempts;
+    private final long createdAt;
+    private final long nextAttemptAt;
+
+    public UserOutboxEvent(Long id, Long userId, String eventType, String payload,
+                           int attempts, long createdAt, long nextAttemptAt) {
+        this.id = id;
+        this.userId = userId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.attempts = attempts;
+        this.createdAt = createdAt;
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+}
@@ -0,0 +1,13 @@
+package com.thanhtam.backend.service;
+
+/**
+ * In-process consumer of outbox events (notification mail, audit, cache refresh...).
+ * Every Spring bean implementing this interface is picked up by {@link UserOutboxDispatcher}.
+ * Handlers must be idempotent: an event is retried when any handler throws.
+ */
+public interface UserOutboxHandler {
+
+    boolean supports(String eventType);
+
+    void handle(UserOutboxEvent event) throws Exception;
+}
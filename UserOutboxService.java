@@ -0,0 +1,36 @@
+package com.thanhtam.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes outbox rows. Must be called from inside the transaction that changes the user
+ * ({@code createUser}, {@code updateUser}, password reset) so the event is committed or
+ * rolled back together with the change.
+ */
+@Service
+public class UserOutboxService {
+
+    private static final String INSERT_SQL = "INSERT INTO user_outbox "
+            + "(user_id, event_type, payload, status, attempts, created_at, next_attempt_at) "
+            + "VALUES (?, ?, ?, 'PENDING', 0, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public UserOutboxService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Long userId, String eventType, String payload) {
+        if (userId == null || eventType == null) {
+            throw new IllegalArgumentException("userId and eventType are required");
+        }
+        long now = System.currentTimeMillis();
+        jdbcTemplate.update(INSERT_SQL, userId, eventType, payload, now, now);
+    }
+}
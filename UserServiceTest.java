@@ -8,21 +8,19 @@ import com.thanhtam.backend.repository.IntakeRepository;
 import com.thanhtam.backend.repository.ProfileRepository;
 import com.thanhtam.backend.repository.RoleRepository;
 import com.thanhtam.backend.repository.UserRepository;
+import com.thanhtam.backend.testsupport.InMemoryServiceTest;
 import com.thanhtam.backend.ultilities.ERole;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.junit4.SpringRunner;
-import org.springframework.transaction.annotation.Transactional;
 
 
 import java.util.HashSet;
@@ -32,11 +30,9 @@ import java.util.Set;
 
 import static org.junit.Assert.*;
 
-@SpringBootTest
 @RunWith(SpringRunner.class)
+@InMemoryServiceTest
 //@ActiveProfiles("test")
-@Transactional
-@Rollback
 //@Sql(scripts = "/cleanup.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
 public class UserServiceTest {
 
@@ -98,6 +94,17 @@ public class UserServiceTest {
         intakeRepository.save(testIntake);
     }
 
+    // Each test starts from an empty in-memory scope; stores "testuser" as its own row
+    private void saveTestUser() {
+        User storedUser = new User();
+        storedUser.setId(testUser.getId());
+        storedUser.setUsername(testUser.getUsername());
+        storedUser.setEmail(testUser.getEmail());
+        storedUser.setPassword(testUser.getPassword());
+        storedUser.setDeleted(false);
+        userRepository.save(storedUser);
+    }
+
         //TC01
     @Test
     public void existsByUsername_NotExists() {
@@ -106,6 +113,7 @@ public class UserServiceTest {
     //TC02
     @Test
     public void existsByUsername_Exists() {
+        saveTestUser();
         assertTrue(userService.existsByUsername("testuser"));
     }
     //TC03
@@ -285,7 +293,8 @@ public class UserServiceTest {
     //TC13
     @Test
     public void getUserByUsername_UserExists_ShouldReturnUser() {
-        // Arrange - user already created in setUp()
+        // Arrange
+        saveTestUser();
 
         // Act
         Optional<User> foundUser = userService.getUserByUsername(testUser.getUsername());
@@ -347,7 +356,8 @@ public class UserServiceTest {
     //TC17
     @Test
     public void existsByEmail_EmailExists_ShouldReturnTrue() {
-        // Arrange - user already created in setUp() with a specific email
+        // Arrange
+        saveTestUser();
         
         // Act
         boolean exists = userService.existsByEmail(testUser.getEmail());
@@ -389,6 +399,7 @@ public class UserServiceTest {
     @Test
     public void updateUser_ShouldUpdateUserInformation() {
         // Arrange
+        saveTestUser();
         String newEmail = "updated" + System.currentTimeMillis() + "@example.com";
         testUser.setEmail(newEmail);
         
@@ -405,6 +416,7 @@ public class UserServiceTest {
     @Test
     public void updateUser_WithNewProfile_ShouldUpdateProfile() {
         // Arrange
+        saveTestUser();
         Profile newProfile = new Profile();
         newProfile.setFirstName("Updated");
         newProfile.setLastName("Name");
@@ -426,6 +438,7 @@ public class UserServiceTest {
     @Test
     public void updateUser_WithNewRoles_ShouldUpdateRoles() {
         // Arrange
+        saveTestUser();
         Set<Role> newRoles = new HashSet<>();
         newRoles.add(lecturerRole);
         testUser.setRoles(newRoles);
@@ -0,0 +1,21 @@
+package com.thanhtam.backend.service;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Published after user rows were changed outside the normal {@code updateUser} path
+ * (bulk statements, restores...). Anything caching per-user state should drop the ids.
+ */
+public class UsersChangedEvent {
+
+    private final Collection<Long> userIds;
+
+    public UsersChangedEvent(Collection<Long> userIds) {
+        this.userIds = Collections.unmodifiableCollection(userIds);
+    }
+
+    public Collection<Long> getUserIds() {
+        return userIds;
+    }
+}
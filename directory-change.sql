@@ -0,0 +1,18 @@
+CREATE TABLE IF NOT EXISTS directory_change (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    seq         BIGINT,
+    entity_type VARCHAR(16) NOT NULL,
+    entity_id   BIGINT      NOT NULL,
+    deleted     BOOLEAN     NOT NULL DEFAULT FALSE,
+    changed_at  BIGINT      NOT NULL,
+    CONSTRAINT uk_directory_change_seq UNIQUE (seq),
+    INDEX idx_directory_change_entity (entity_type, entity_id, id)
+);
+
+CREATE TABLE IF NOT EXISTS directory_change_counter (
+    id       INT    PRIMARY KEY,
+    next_seq BIGINT NOT NULL
+);
+
+INSERT INTO directory_change_counter (id, next_seq)
+SELECT 1, 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM directory_change_counter WHERE id = 1);
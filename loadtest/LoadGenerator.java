@@ -0,0 +1,142 @@
+package com.thanhtam.backend.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load generator.
+ *
+ * Workers start evenly spread over the ramp-up period, then loop until the run ends: pick an
+ * operation by weight, time it, sleep for the think time. Latencies are recorded in
+ * microseconds into one HdrHistogram per operation. Only iterations that start after the
+ * ramp-up finished are recorded, so the report describes steady state.
+ *
+ * The numbers are closed-loop service times: a worker waits for its call to return before it
+ * issues the next one, so a stall delays the requests that would have been sent meanwhile
+ * instead of queueing them, and those waits are not recorded (coordinated omission). Compare
+ * reports of the same profile with each other; they do not give the latency an open-loop
+ * client at a fixed arrival rate would see.
+ *
+ * Interrupting a worker ends it after its current operation.
+ */
+public class LoadGenerator {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final LoadProfile profile;
+    private final List<LoadOperation> operations;
+    private final int totalWeight;
+
+    public LoadGenerator(LoadProfile profile, List<LoadOperation> operations) {
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("At least one operation is required");
+        }
+        int weight = 0;
+        for (LoadOperation operation : operations) {
+            if (operation.weight() <= 0) {
+                throw new IllegalArgumentException("Operation weight must be positive: " + operation.name());
+            }
+            weight += operation.weight();
+        }
+        this.profile = profile;
+        this.operations = new ArrayList<>(operations);
+        this.totalWeight = weight;
+    }
+
+    public LoadReport run() throws InterruptedException {
+        final Map<String, Histogram> histograms = new LinkedHashMap<>();
+        final Map<String, AtomicLong> errors = new LinkedHashMap<>();
+        for (LoadOperation operation : operations) {
+            histograms.put(operation.name(), new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+            errors.put(operation.name(), new AtomicLong());
+        }
+
+        final long startNanos = System.nanoTime();
+        final long steadyNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(profile.getRampUpMs());
+        final long endNanos = steadyNanos + TimeUnit.MILLISECONDS.toNanos(profile.getDurationMs());
+        final CountDownLatch done = new CountDownLatch(profile.getConcurrency());
+
+        for (int i = 0; i < profile.getConcurrency(); i++) {
+            final int worker = i;
+            final long startDelayMs = profile.getRampUpMs() * worker / profile.getConcurrency();
+            Thread thread = new Thread(() -> {
+                try {
+                    if (!sleep(startDelayMs)) {
+                        return;
+                    }
+                    long iteration = 0;
+                    while (System.nanoTime() < endNanos && !Thread.currentThread().isInterrupted()) {
+                        LoadOperation operation = pick();
+                        long begin = System.nanoTime();
+                        boolean failed = false;
+                        try {
+                            operation.execute(worker, iteration++);
+                        } catch (Exception e) {
+                            failed = true;
+                        }
+                        if (begin >= steadyNanos) {
+                            histograms.get(operation.name()).recordValue((System.nanoTime() - begin) / 1000);
+                            if (failed) {
+                                errors.get(operation.name()).incrementAndGet();
+                            }
+                        }
+                        if (!sleep(profile.getThinkTimeMs())) {
+                            return;
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-worker-" + worker);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        done.await();
+        long measuredMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - steadyNanos));
+        List<OperationStats> stats = new ArrayList<>();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            stats.add(OperationStats.from(entry.getKey(), entry.getValue(),
+                    errors.get(entry.getKey()).get(), measuredMs));
+        }
+        return new LoadReport(profile.toString(), stats);
+    }
+
+    private LoadOperation pick() {
+        return pick(ThreadLocalRandom.current().nextInt(totalWeight));
+    }
+
+    /** Operation for {@code roll} in {@code [0, totalWeight)}; each owns as many rolls as its weight. */
+    LoadOperation pick(int roll) {
+        for (LoadOperation operation : operations) {
+            roll -= operation.weight();
+            if (roll < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    /** Returns {@code false}, with the interrupt flag restored, if the thread was interrupted. */
+    private static boolean sleep(long millis) {
+        if (millis <= 0) {
+            return !Thread.currentThread().isInterrupted();
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.thanhtam.backend.loadtest;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LoadGeneratorTest {
+
+    private static LoadOperation operation(String name, int weight, Runnable body) {
+        return new LoadOperation() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public int weight() {
+                return weight;
+            }
+
+            @Override
+            public void execute(int worker, long iteration) {
+                body.run();
+            }
+        };
+    }
+
+    //TC01
+    @Test
+    public void pick_ShouldGiveEachOperationAsManyRollsAsItsWeight() {
+        // Arrange
+        LoadOperation read = operation("read", 3, () -> { });
+        LoadOperation write = operation("write", 1, () -> { });
+        LoadOperation delete = operation("delete", 2, () -> { });
+        LoadGenerator generator = new LoadGenerator(new LoadProfile(1, 0, 1, 0, 0),
+                Arrays.asList(read, write, delete));
+
+        // Act & Assert
+        assertSame(read, generator.pick(0));
+        assertSame(read, generator.pick(2));
+        assertSame(write, generator.pick(3));
+        assertSame(delete, generator.pick(4));
+        assertSame(delete, generator.pick(5));
+    }
+
+    //TC02
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_ZeroWeight_ShouldThrow() {
+        new LoadGenerator(new LoadProfile(1, 0, 1, 0, 0),
+                Collections.singletonList(operation("noop", 0, () -> { })));
+    }
+
+    //TC03
+    @Test
+    public void run_InterruptedWorker_ShouldStopBeforeTheRunEnds() throws Exception {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        LoadOperation interrupting = operation("interrupt", 1, () -> {
+            calls.incrementAndGet();
+            Thread.currentThread().interrupt();
+        });
+        LoadGenerator generator = new LoadGenerator(new LoadProfile(1, 0, 60_000, 10, 0),
+                Collections.singletonList(interrupting));
+
+        // Act
+        long started = System.currentTimeMillis();
+        LoadReport report = generator.run();
+
+        // Assert
+        assertTrue(System.currentTimeMillis() - started < 30_000);
+        assertEquals(1, calls.get());
+        assertEquals(1, report.find("interrupt").getCount());
+    }
+}
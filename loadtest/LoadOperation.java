@@ -0,0 +1,15 @@
+package com.thanhtam.backend.loadtest;
+
+/**
+ * One measured step of a scenario. {@code worker} and {@code iteration} let operations
+ * derive unique keys (usernames...) without shared counters.
+ */
+public interface LoadOperation {
+
+    String name();
+
+    /** Relative share of iterations that run this operation. */
+    int weight();
+
+    void execute(int worker, long iteration) throws Exception;
+}
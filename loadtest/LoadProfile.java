@@ -0,0 +1,60 @@
+package com.thanhtam.backend.loadtest;
+
+/**
+ * Shape of a load-test run. Values come from {@code loadtest.*} system properties so the
+ * same scenario can be replayed with different settings from the command line.
+ */
+public class LoadProfile {
+
+    private final int concurrency;
+    private final long rampUpMs;
+    private final long durationMs;
+    private final long thinkTimeMs;
+    private final int seedUsers;
+
+    public LoadProfile(int concurrency, long rampUpMs, long durationMs, long thinkTimeMs, int seedUsers) {
+        if (concurrency <= 0 || durationMs <= 0 || rampUpMs < 0 || thinkTimeMs < 0 || seedUsers < 0) {
+            throw new IllegalArgumentException("Invalid load profile");
+        }
+        this.concurrency = concurrency;
+        this.rampUpMs = rampUpMs;
+        this.durationMs = durationMs;
+        this.thinkTimeMs = thinkTimeMs;
+        this.seedUsers = seedUsers;
+    }
+
+    public static LoadProfile fromSystemProperties() {
+        return new LoadProfile(
+                Integer.getInteger("loadtest.concurrency", 32),
+                Long.getLong("loadtest.ramp-up-ms", 10_000L),
+                Long.getLong("loadtest.duration-ms", 60_000L),
+                Long.getLong("loadtest.think-time-ms", 0L),
+                Integer.getInteger("loadtest.seed-users", 1_000));
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public long getRampUpMs() {
+        return rampUpMs;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public long getThinkTimeMs() {
+        return thinkTimeMs;
+    }
+
+    public int getSeedUsers() {
+        return seedUsers;
+    }
+
+    @Override
+    public String toString() {
+        return "concurrency=" + concurrency + ", rampUpMs=" + rampUpMs + ", durationMs=" + durationMs
+                + ", thinkTimeMs=" + thinkTimeMs + ", seedUsers=" + seedUsers;
+    }
+}
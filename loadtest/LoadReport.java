@@ -0,0 +1,75 @@
+package com.thanhtam.backend.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of one run. Stored as a small CSV file (first line is the profile as a comment) so
+ * two runs can be compared later with {@link LoadReportComparison}.
+ */
+public class LoadReport {
+
+    private final String profile;
+    private final List<OperationStats> operations;
+
+    public LoadReport(String profile, List<OperationStats> operations) {
+        this.profile = profile;
+        this.operations = Collections.unmodifiableList(new ArrayList<>(operations));
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public List<OperationStats> getOperations() {
+        return operations;
+    }
+
+    public OperationStats find(String operation) {
+        for (OperationStats stats : operations) {
+            if (stats.getOperation().equals(operation)) {
+                return stats;
+            }
+        }
+        return null;
+    }
+
+    public void write(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# " + profile);
+        lines.add(OperationStats.CSV_HEADER);
+        for (OperationStats stats : operations) {
+            lines.add(stats.toCsv());
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    public static LoadReport read(Path file) throws IOException {
+        String profile = "";
+        List<OperationStats> operations = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.startsWith("# ")) {
+                profile = line.substring(2);
+            } else if (!line.isEmpty() && !line.equals(OperationStats.CSV_HEADER)) {
+                operations.add(OperationStats.fromCsv(line));
+            }
+        }
+        return new LoadReport(profile, operations);
+    }
+
+    public void print(PrintStream out) {
+        out.println("Profile: " + profile);
+        out.printf("%-20s %10s %8s %12s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "ops/s", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "max(us)");
+        for (OperationStats s : operations) {
+            out.printf("%-20s %10d %8d %12.2f %10d %10d %10d %10d %10d%n", s.getOperation(), s.getCount(),
+                    s.getErrors(), s.getThroughput(), s.getP50(), s.getP90(), s.getP99(), s.getP999(), s.getMax());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.thanhtam.backend.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Compares two saved reports operation by operation.
+ *
+ * Usage: {@code LoadReportComparison <baseline.csv> <candidate.csv>}. Positive latency
+ * deltas and negative throughput deltas are regressions.
+ */
+public class LoadReportComparison {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: LoadReportComparison <baseline.csv> <candidate.csv>");
+            System.exit(2);
+        }
+        compare(LoadReport.read(Paths.get(args[0])), LoadReport.read(Paths.get(args[1])), System.out);
+    }
+
+    public static void compare(LoadReport baseline, LoadReport candidate, PrintStream out) {
+        out.println("Baseline:  " + baseline.getProfile());
+        out.println("Candidate: " + candidate.getProfile());
+        out.printf("%-20s %12s %10s %10s %10s %10s%n", "operation", "ops/s", "p50", "p90", "p99", "p99.9");
+        for (OperationStats base : baseline.getOperations()) {
+            OperationStats next = candidate.find(base.getOperation());
+            if (next == null) {
+                out.printf("%-20s %s%n", base.getOperation(), "missing in candidate");
+                continue;
+            }
+            out.printf("%-20s %12s %10s %10s %10s %10s%n", base.getOperation(),
+                    delta(base.getThroughput(), next.getThroughput()),
+                    delta(base.getP50(), next.getP50()),
+                    delta(base.getP90(), next.getP90()),
+                    delta(base.getP99(), next.getP99()),
+                    delta(base.getP999(), next.getP999()));
+        }
+    }
+
+    static String delta(double before, double after) {
+        if (before == 0) {
+            return after == 0 ? "0.0%" : "n/a";
+        }
+        return String.format(Locale.ROOT, "%+.1f%%", (after - before) * 100.0 / before);
+    }
+}
@@ -0,0 +1,23 @@
+package com.thanhtam.backend.loadtest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LoadReportComparisonTest {
+
+    //TC01
+    @Test
+    public void delta_ShouldBeSignedPercentOfBaseline() {
+        assertEquals("+50.0%", LoadReportComparison.delta(200, 300));
+        assertEquals("-25.0%", LoadReportComparison.delta(200, 150));
+        assertEquals("+0.0%", LoadReportComparison.delta(200, 200));
+    }
+
+    //TC02
+    @Test
+    public void delta_ZeroBaseline_ShouldNotDivide() {
+        assertEquals("0.0%", LoadReportComparison.delta(0, 0));
+        assertEquals("n/a", LoadReportComparison.delta(0, 10));
+    }
+}
@@ -0,0 +1,44 @@
+package com.thanhtam.backend.loadtest;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LoadReportTest {
+
+    //TC01
+    @Test
+    public void writeThenRead_ShouldRoundTripProfileAndStats() throws Exception {
+        // Arrange
+        LoadReport report = new LoadReport("concurrency=4, rampUpMs=0", Arrays.asList(
+                new OperationStats("login", 1200, 3, 20.5, 800, 1500, 4000, 9000, 12000),
+                new OperationStats("createUser", 300, 0, 5.0, 2000, 3500, 7000, 8000, 8100)));
+        Path file = Files.createTempFile("loadtest-report", ".csv");
+        try {
+            // Act
+            report.write(file);
+            LoadReport read = LoadReport.read(file);
+
+            // Assert
+            assertEquals("concurrency=4, rampUpMs=0", read.getProfile());
+            assertEquals(2, read.getOperations().size());
+            OperationStats login = read.find("login");
+            assertEquals(1200, login.getCount());
+            assertEquals(3, login.getErrors());
+            assertEquals(20.5, login.getThroughput(), 0.001);
+            assertEquals(800, login.getP50());
+            assertEquals(1500, login.getP90());
+            assertEquals(4000, login.getP99());
+            assertEquals(9000, login.getP999());
+            assertEquals(12000, login.getMax());
+            assertEquals(8100, read.find("createUser").getMax());
+            assertNull(read.find("missing"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.thanhtam.backend.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+
+/**
+ * Throughput and latency percentiles (microseconds) of one operation in one run.
+ */
+public class OperationStats {
+
+    static final String CSV_HEADER = "operation,count,errors,throughput,p50,p90,p99,p999,max";
+
+    private final String operation;
+    private final long count;
+    private final long errors;
+    private final double throughput;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    public OperationStats(String operation, long count, long errors, double throughput,
+                          long p50, long p90, long p99, long p999, long max) {
+        this.operation = operation;
+        this.count = count;
+        this.errors = errors;
+        this.throughput = throughput;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    static OperationStats from(String operation, Histogram histogram, long errors, long measuredMs) {
+        long count = histogram.getTotalCount();
+        return new OperationStats(operation, count, errors, count * 1000.0 / measuredMs,
+                histogram.getValueAtPercentile(50.0),
+                histogram.getValueAtPercentile(90.0),
+                histogram.getValueAtPercentile(99.0),
+                histogram.getValueAtPercentile(99.9),
+                histogram.getMaxValue());
+    }
+
+    String toCsv() {
+        return operation + "," + count + "," + errors + "," + String.format(Locale.ROOT, "%.2f", throughput)
+                + "," + p50 + "," + p90 + "," + p99 + "," + p999 + "," + max;
+    }
+
+    static OperationStats fromCsv(String line) {
+        String[] parts = line.split(",");
+        if (parts.length != 9) {
+            throw new IllegalArgumentException("Malformed report line: " + line);
+        }
+        return new OperationStats(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                Double.parseDouble(parts[3]), Long.parseLong(parts[4]), Long.parseLong(parts[5]),
+                Long.parseLong(parts[6]), Long.parseLong(parts[7]), Long.parseLong(parts[8]));
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMax() {
+        return max;
+    }
+}
@@ -0,0 +1,67 @@
+package com.thanhtam.backend.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OperationStatsTest {
+
+    //TC01
+    @Test
+    public void fromCsv_ShouldParseEveryColumn() {
+        // Act
+        OperationStats stats = OperationStats.fromCsv("login,10,1,2.50,100,200,300,400,500");
+
+        // Assert
+        assertEquals("login", stats.getOperation());
+        assertEquals(10, stats.getCount());
+        assertEquals(1, stats.getErrors());
+        assertEquals(2.5, stats.getThroughput(), 0.001);
+        assertEquals(100, stats.getP50());
+        assertEquals(200, stats.getP90());
+        assertEquals(300, stats.getP99());
+        assertEquals(400, stats.getP999());
+        assertEquals(500, stats.getMax());
+    }
+
+    //TC02
+    @Test
+    public void toCsv_ShouldBeReadBackByFromCsv() {
+        // Arrange
+        OperationStats stats = new OperationStats("createUser", 7, 0, 1.234, 1, 2, 3, 4, 5);
+
+        // Act
+        String line = stats.toCsv();
+
+        // Assert
+        assertEquals("createUser,7,0,1.23,1,2,3,4,5", line);
+        assertEquals(5, OperationStats.fromCsv(line).getMax());
+    }
+
+    //TC03
+    @Test(expected = IllegalArgumentException.class)
+    public void fromCsv_MissingColumn_ShouldThrow() {
+        OperationStats.fromCsv("login,10,1,2.50,100,200,300,400");
+    }
+
+    //TC04
+    @Test
+    public void from_ShouldComputeThroughputOverMeasuredTime() {
+        // Arrange
+        Histogram histogram = new Histogram(3);
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordValue(i);
+        }
+
+        // Act
+        OperationStats stats = OperationStats.from("login", histogram, 2, 4000);
+
+        // Assert
+        assertEquals(100, stats.getCount());
+        assertEquals(2, stats.getErrors());
+        assertEquals(25.0, stats.getThroughput(), 0.001);
+        assertEquals(50, stats.getP50());
+        assertEquals(100, stats.getMax());
+    }
+}
@@ -0,0 +1,124 @@
+package com.thanhtam.backend.loadtest;
+
+import com.thanhtam.backend.entity.User;
+import com.thanhtam.backend.service.UserDetailsImpl;
+import com.thanhtam.backend.service.UserService;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Registration and login load scenario against an embedded H2 database.
+ *
+ * Skipped unless {@code -Dloadtest.enabled=true}. Run shape is read from {@code loadtest.*}
+ * system properties (see {@link LoadProfile}); the report is printed and written to
+ * {@code loadtest.report} (default {@code target/loadtest-report.csv}). Compare two runs with
+ * {@link LoadReportComparison}.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.warmup.enabled=false"
+})
+@RunWith(SpringRunner.class)
+public class UserFlowLoadTest {
+
+    private static final String SEED_PREFIX = "seed";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    public void runUserFlows() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("loadtest.enabled"));
+        final LoadProfile profile = LoadProfile.fromSystemProperties();
+        assertTrue("loadtest.seed-users must be positive", profile.getSeedUsers() > 0);
+        final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+        for (int i = 0; i < profile.getSeedUsers(); i++) {
+            userService.createUser(newUser(SEED_PREFIX + i));
+        }
+
+        LoadGenerator generator = new LoadGenerator(profile, Arrays.asList(
+                operation("createUser", 1, (worker, iteration) ->
+                        userService.createUser(newUser("lt" + runId + "w" + worker + "i" + iteration))),
+                operation("existsByUsername", 3, (worker, iteration) ->
+                        userService.existsByUsername(randomSeedUsername(profile))),
+                operation("getUserByUsername", 3, (worker, iteration) ->
+                        userService.getUserByUsername(randomSeedUsername(profile))),
+                operation("authenticate", 3, (worker, iteration) -> {
+                    // createUser stores the username as the initial password.
+                    String username = randomSeedUsername(profile);
+                    User user = userService.getUserByUsername(username)
+                            .orElseThrow(() -> new IllegalStateException("Seed user missing: " + username));
+                    UserDetailsImpl details = UserDetailsImpl.build(user);
+                    if (!passwordEncoder.matches(username, details.getPassword())) {
+                        throw new IllegalStateException("Bad credentials for " + username);
+                    }
+                })));
+
+        LoadReport report = generator.run();
+        report.print(System.out);
+        Path output = Paths.get(System.getProperty("loadtest.report", "target/loadtest-report.csv"));
+        if (output.getParent() != null) {
+            output.getParent().toFile().mkdirs();
+        }
+        report.write(output);
+
+        for (OperationStats stats : report.getOperations()) {
+            assertEquals("Errors in " + stats.getOperation(), 0, stats.getErrors());
+        }
+    }
+
+    private String randomSeedUsername(LoadProfile profile) {
+        return SEED_PREFIX + ThreadLocalRandom.current().nextInt(profile.getSeedUsers());
+    }
+
+    private static User newUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@loadtest.local");
+        user.setDeleted(false);
+        return user;
+    }
+
+    private interface Step {
+        void run(int worker, long iteration) throws Exception;
+    }
+
+    private static LoadOperation operation(final String name, final int weight, final Step step) {
+        return new LoadOperation() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public int weight() {
+                return weight;
+            }
+
+            @Override
+            public void execute(int worker, long iteration) throws Exception {
+                step.run(worker, iteration);
+            }
+        };
+    }
+}
@@ -0,0 +1,4 @@
+CREATE TABLE IF NOT EXISTS login_lockout (
+    lock_key     VARCHAR(320) PRIMARY KEY,
+    locked_until BIGINT       NOT NULL
+);
@@ -0,0 +1,6 @@
+CREATE TABLE IF NOT EXISTS password_reset_token (
+    token_hash CHAR(64) PRIMARY KEY,
+    user_id    BIGINT   NOT NULL,
+    expires_at BIGINT   NOT NULL,
+    INDEX idx_password_reset_token_expires_at (expires_at)
+);
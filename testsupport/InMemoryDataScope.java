@@ -0,0 +1,36 @@
+package com.thanhtam.backend.testsupport;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Where the in-memory repositories keep their rows.
+ *
+ * Outside a scope every caller shares one set of tables. {@link #open()} gives the current
+ * thread (and threads it starts) a fresh, empty set until {@link #close()}, which is how the
+ * fast test mode isolates tests that share one application context and run in parallel.
+ */
+public final class InMemoryDataScope {
+
+    private static final Map<Class<?>, InMemoryTable> SHARED = new ConcurrentHashMap<>();
+    private static final InheritableThreadLocal<Map<Class<?>, InMemoryTable>> CURRENT = new InheritableThreadLocal<>();
+
+    private InMemoryDataScope() {
+    }
+
+    public static void open() {
+        CURRENT.set(new ConcurrentHashMap<>());
+    }
+
+    public static void close() {
+        CURRENT.remove();
+    }
+
+    static InMemoryTable table(Class<?> entityType) {
+        Map<Class<?>, InMemoryTable> tables = CURRENT.get();
+        if (tables == null) {
+            tables = SHARED;
+        }
+        return tables.computeIfAbsent(entityType, InMemoryTable::new);
+    }
+}
@@ -0,0 +1,27 @@
+package com.thanhtam.backend.testsupport;
+
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.support.AbstractTestExecutionListener;
+
+/**
+ * Gives every test method its own empty {@link InMemoryDataScope}, so tests sharing one
+ * context neither see each other's rows nor need cleanup scripts, even when run in parallel.
+ */
+public class InMemoryIsolationListener extends AbstractTestExecutionListener {
+
+    @Override
+    public int getOrder() {
+        // Before the transactional and SQL script listeners, so @Before methods see the scope.
+        return 0;
+    }
+
+    @Override
+    public void beforeTestMethod(TestContext testContext) {
+        InMemoryDataScope.open();
+    }
+
+    @Override
+    public void afterTestMethod(TestContext testContext) {
+        InMemoryDataScope.close();
+    }
+}
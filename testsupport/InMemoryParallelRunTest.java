@@ -0,0 +1,35 @@
+package com.thanhtam.backend.testsupport;
+
+import com.thanhtam.backend.service.ProfileServiceTest;
+import com.thanhtam.backend.service.UserServiceTest;
+import org.junit.Test;
+import org.junit.experimental.ParallelComputer;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the {@link InMemoryServiceTest} classes concurrently, classes and methods alike, so the
+ * shared context and the per-test {@link InMemoryDataScope} are exercised the way a parallel
+ * build runs them.
+ */
+public class InMemoryParallelRunTest {
+
+    //TC01
+    @Test
+    public void serviceTests_RunInParallel_ShouldAllPass() {
+        // Act
+        Result result = JUnitCore.runClasses(new ParallelComputer(true, true),
+                UserServiceTest.class, ProfileServiceTest.class);
+
+        // Assert
+        StringBuilder failures = new StringBuilder();
+        for (Failure failure : result.getFailures()) {
+            failures.append(failure.getTestHeader()).append(": ").append(failure.getMessage()).append('\n');
+        }
+        assertTrue(failures.toString(), result.wasSuccessful());
+        assertTrue(result.getRunCount() > 0);
+    }
+}
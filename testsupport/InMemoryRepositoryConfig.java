@@ -0,0 +1,46 @@
+package com.thanhtam.backend.testsupport;
+
+import com.thanhtam.backend.repository.IntakeRepository;
+import com.thanhtam.backend.repository.ProfileRepository;
+import com.thanhtam.backend.repository.RoleRepository;
+import com.thanhtam.backend.repository.UserRepository;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Replaces the JPA repositories of the user directory with {@link InMemoryRepositoryFactory}
+ * proxies when the {@code inmemory} profile is active. The JPA beans still exist but services
+ * get the primary in-memory ones injected.
+ */
+@Configuration
+@Profile(InMemoryRepositoryConfig.PROFILE)
+public class InMemoryRepositoryConfig {
+
+    public static final String PROFILE = "inmemory";
+
+    @Bean
+    @Primary
+    public UserRepository inMemoryUserRepository() {
+        return InMemoryRepositoryFactory.create(UserRepository.class);
+    }
+
+    @Bean
+    @Primary
+    public ProfileRepository inMemoryProfileRepository() {
+        return InMemoryRepositoryFactory.create(ProfileRepository.class);
+    }
+
+    @Bean
+    @Primary
+    public RoleRepository inMemoryRoleRepository() {
+        return InMemoryRepositoryFactory.create(RoleRepository.class);
+    }
+
+    @Bean
+    @Primary
+    public IntakeRepository inMemoryIntakeRepository() {
+        return InMemoryRepositoryFactory.create(IntakeRepository.class);
+    }
+}
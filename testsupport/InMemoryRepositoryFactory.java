@@ -0,0 +1,346 @@
+package com.thanhtam.backend.testsupport;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Builds in-memory implementations of Spring Data repository interfaces.
+ *
+ * The returned proxy answers the CRUD methods ({@code save}, {@code findById},
+ * {@code findAll}, {@code deleteAll}, ...) and derived finders such as
+ * {@code findByUsername}, {@code existsByEmail} or {@code findByIntakeCodeAndNameIgnoreCase}
+ * from an {@link InMemoryTable}, so no database or JPA provider is needed. Finders filter on
+ * equality only, and {@code First}/{@code TopN} finders keep the first N matches; methods
+ * carrying {@code @Query}, paging, sorting or query-by-example throw
+ * {@link UnsupportedOperationException}. Rows live in the table of the caller's
+ * {@link InMemoryDataScope}.
+ */
+public final class InMemoryRepositoryFactory {
+
+    private static final Pattern DERIVED = Pattern.compile(
+            "^(find|get|read|query|exists|count|delete|remove)(?:All|Distinct)?(?:(First|Top)(\\d*))?By(.+)$");
+
+    private InMemoryRepositoryFactory() {
+    }
+
+    public static <R> R create(Class<R> repositoryInterface) {
+        Class<?> entityType = entityType(repositoryInterface);
+        if (entityType == null) {
+            throw new IllegalArgumentException("Cannot determine the entity type of " + repositoryInterface.getName());
+        }
+        return repositoryInterface.cast(Proxy.newProxyInstance(repositoryInterface.getClassLoader(),
+                new Class<?>[]{repositoryInterface}, new Handler(repositoryInterface, entityType)));
+    }
+
+    /** First type argument of the repository's generic super-interface, e.g. {@code User}. */
+    private static Class<?> entityType(Class<?> type) {
+        for (Type generic : type.getGenericInterfaces()) {
+            if (generic instanceof ParameterizedType) {
+                Type[] arguments = ((ParameterizedType) generic).getActualTypeArguments();
+                if (arguments.length > 0 && arguments[0] instanceof Class) {
+                    return (Class<?>) arguments[0];
+                }
+            } else if (generic instanceof Class) {
+                Class<?> found = entityType((Class<?>) generic);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static final class Handler implements InvocationHandler {
+
+        private final Class<?> repositoryInterface;
+        private final Class<?> entityType;
+        private final Map<Method, Finder> finders = new ConcurrentHashMap<>();
+
+        Handler(Class<?> repositoryInterface, Class<?> entityType) {
+            this.repositoryInterface = repositoryInterface;
+            this.entityType = entityType;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            Object[] arguments = args == null ? new Object[0] : args;
+            String name = method.getName();
+            if (method.getDeclaringClass() == Object.class) {
+                switch (name) {
+                    case "equals":
+                        return proxy == arguments[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "InMemory" + repositoryInterface.getSimpleName();
+                }
+            }
+            if (hasQueryAnnotation(method)) {
+                throw unsupported(method);
+            }
+            InMemoryTable table = InMemoryDataScope.table(entityType);
+            switch (arguments.length) {
+                case 0:
+                    return noArgument(table, method);
+                case 1:
+                    if (!DERIVED.matcher(name).matches() || name.endsWith("ById") || name.endsWith("ByIdInBatch")) {
+                        return oneArgument(table, method, arguments[0]);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return finders.computeIfAbsent(method, this::parse).invoke(table, method, arguments);
+        }
+
+        private Object noArgument(InMemoryTable table, Method method) {
+            switch (method.getName()) {
+                case "findAll":
+                    return table.findAll();
+                case "count":
+                    return (long) table.count();
+                case "deleteAll":
+                case "deleteAllInBatch":
+                    table.deleteAll();
+                    return null;
+                case "flush":
+                    return null;
+                default:
+                    throw unsupported(method);
+            }
+        }
+
+        private Object oneArgument(InMemoryTable table, Method method, Object argument) {
+            switch (method.getName()) {
+                case "save":
+                case "saveAndFlush":
+                    return table.save(argument);
+                case "saveAll":
+                case "saveAllAndFlush":
+                    List<Object> saved = new ArrayList<>();
+                    for (Object entity : (Iterable<?>) argument) {
+                        saved.add(table.save(entity));
+                    }
+                    return saved;
+                case "findById":
+                    return Optional.ofNullable(table.findById((Long) argument));
+                case "existsById":
+                    return table.findById((Long) argument) != null;
+                case "getOne":
+                case "getById":
+                case "getReferenceById":
+                    Object entity = table.findById((Long) argument);
+                    if (entity == null) {
+                        throw new IllegalArgumentException("No " + entityType.getSimpleName() + " with id " + argument);
+                    }
+                    return entity;
+                case "findAllById":
+                    List<Object> found = new ArrayList<>();
+                    for (Object id : (Iterable<?>) argument) {
+                        Object row = table.findById((Long) id);
+                        if (row != null) {
+                            found.add(row);
+                        }
+                    }
+                    return found;
+                case "deleteById":
+                    table.deleteById((Long) argument);
+                    return null;
+                case "delete":
+                    table.deleteById((Long) InMemoryTable.read(argument, "id"));
+                    return null;
+                case "deleteAll":
+                case "deleteInBatch":
+                case "deleteAllInBatch":
+                    for (Object row : (Iterable<?>) argument) {
+                        table.deleteById((Long) InMemoryTable.read(row, "id"));
+                    }
+                    return null;
+                case "deleteAllById":
+                case "deleteAllByIdInBatch":
+                    for (Object id : (Iterable<?>) argument) {
+                        table.deleteById((Long) id);
+                    }
+                    return null;
+                default:
+                    throw unsupported(method);
+            }
+        }
+
+        private Finder parse(Method method) {
+            Matcher matcher = DERIVED.matcher(method.getName());
+            if (!matcher.matches()) {
+                throw unsupported(method);
+            }
+            String criteria = matcher.group(4);
+            int orderBy = criteria.indexOf("OrderBy");
+            if (orderBy >= 0 || criteria.contains("Or") && criteria.matches(".*[a-z]Or[A-Z].*")) {
+                throw unsupported(method);
+            }
+            List<String> paths = new ArrayList<>();
+            List<Boolean> ignoreCase = new ArrayList<>();
+            for (String part : criteria.split("And(?=[A-Z])")) {
+                boolean ic = part.endsWith("IgnoreCase");
+                String property = ic ? part.substring(0, part.length() - "IgnoreCase".length()) : part;
+                if (property.endsWith("Is") || property.endsWith("Equals")) {
+                    property = property.substring(0, property.length() - (property.endsWith("Is") ? 2 : 6));
+                }
+                String path = propertyPath(entityType, property);
+                if (path == null) {
+                    throw new UnsupportedOperationException(repositoryInterface.getSimpleName() + "." + method.getName()
+                            + ": no property " + property + " on " + entityType.getSimpleName());
+                }
+                paths.add(path);
+                ignoreCase.add(ic);
+            }
+            if (paths.size() != method.getParameterCount()) {
+                throw unsupported(method);
+            }
+            int limit = 0;
+            if (matcher.group(2) != null) {
+                limit = matcher.group(3).isEmpty() ? 1 : Integer.parseInt(matcher.group(3));
+                if (limit <= 0) {
+                    throw unsupported(method);
+                }
+            }
+            return new Finder(matcher.group(1), limit, paths, ignoreCase);
+        }
+
+        private UnsupportedOperationException unsupported(Method method) {
+            return new UnsupportedOperationException(repositoryInterface.getSimpleName() + "." + method.getName()
+                    + " is not supported by the in-memory repositories");
+        }
+    }
+
+    /**
+     * Resolves a capitalised property expression such as {@code IntakeCode} or {@code RolesName}
+     * into a dotted path, preferring the longest property that exists at each step.
+     */
+    static String propertyPath(Class<?> type, String expression) {
+        if (expression.isEmpty()) {
+            return null;
+        }
+        for (int end = expression.length(); end > 0; end--) {
+            if (end < expression.length() && !Character.isUpperCase(expression.charAt(end))) {
+                continue;
+            }
+            String head = Character.toLowerCase(expression.charAt(0)) + expression.substring(1, end);
+            if (!InMemoryTable.hasProperty(type, head)) {
+                continue;
+            }
+            if (end == expression.length()) {
+                return head;
+            }
+            Class<?> next = InMemoryTable.propertyType(type, head);
+            if (Collection.class.isAssignableFrom(next)) {
+                next = elementType(type, head);
+            }
+            String tail = next == null ? null : propertyPath(next, expression.substring(end));
+            if (tail != null) {
+                return head + "." + tail;
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> elementType(Class<?> type, String property) {
+        try {
+            Type generic = type.getMethod("get" + Character.toUpperCase(property.charAt(0)) + property.substring(1))
+                    .getGenericReturnType();
+            if (generic instanceof ParameterizedType) {
+                Type argument = ((ParameterizedType) generic).getActualTypeArguments()[0];
+                return argument instanceof Class ? (Class<?>) argument : null;
+            }
+        } catch (NoSuchMethodException e) {
+            // Boolean "is" getters never hold collections.
+        }
+        return null;
+    }
+
+    private static boolean hasQueryAnnotation(Method method) {
+        for (Annotation annotation : method.getAnnotations()) {
+            String name = annotation.annotationType().getName();
+            if (name.endsWith(".Query") || name.endsWith(".Modifying") || name.endsWith(".Procedure")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Finder {
+        private final String verb;
+        // Rows kept by a First/Top finder; 0 keeps them all.
+        private final int limit;
+        private final List<String> paths;
+        private final List<Boolean> ignoreCase;
+
+        Finder(String verb, int limit, List<String> paths, List<Boolean> ignoreCase) {
+            this.verb = verb;
+            this.limit = limit;
+            this.paths = paths;
+            this.ignoreCase = ignoreCase;
+        }
+
+        Object invoke(InMemoryTable table, Method method, Object[] arguments) {
+            List<Object> values = new ArrayList<>();
+            for (Object argument : arguments) {
+                values.add(argument);
+            }
+            List<Object> rows = table.find(paths, values, ignoreCase);
+            Class<?> returnType = method.getReturnType();
+            switch (verb) {
+                case "exists":
+                    return !rows.isEmpty();
+                case "count":
+                    return returnType == int.class || returnType == Integer.class ? (Object) rows.size() : (Object) (long) rows.size();
+                case "delete":
+                case "remove":
+                    for (Object row : rows) {
+                        table.deleteById((Long) InMemoryTable.read(row, "id"));
+                    }
+                    if (returnType == void.class) {
+                        return null;
+                    }
+                    return Collection.class.isAssignableFrom(returnType) ? rows : (Object) (long) rows.size();
+                default:
+                    return adapt(limit > 0 && rows.size() > limit ? rows.subList(0, limit) : rows, returnType);
+            }
+        }
+
+        private static Object adapt(List<Object> rows, Class<?> returnType) {
+            if (returnType.isAssignableFrom(List.class)) {
+                return rows;
+            }
+            if (Set.class.isAssignableFrom(returnType)) {
+                return new LinkedHashSet<>(rows);
+            }
+            if (Stream.class.isAssignableFrom(returnType)) {
+                return rows.stream();
+            }
+            if (Iterator.class.isAssignableFrom(returnType)) {
+                return rows.iterator();
+            }
+            if (rows.size() > 1) {
+                throw new IllegalStateException("Expected at most one result but found " + rows.size());
+            }
+            Object single = rows.isEmpty() ? null : rows.get(0);
+            return returnType == Optional.class ? Optional.ofNullable(single) : single;
+        }
+    }
+}
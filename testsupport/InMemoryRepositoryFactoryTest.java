@@ -0,0 +1,315 @@
+package com.thanhtam.backend.testsupport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class InMemoryRepositoryFactoryTest {
+
+    public interface Repository<T, ID> {
+        T save(T entity);
+
+        Optional<T> findById(ID id);
+
+        List<T> findAll();
+
+        long count();
+
+        void delete(T entity);
+
+        void deleteAll();
+    }
+
+    public interface GroupRepository extends Repository<Group, Long> {
+    }
+
+    public interface MemberRepository extends Repository<Member, Long> {
+        Optional<Member> findByUsername(String username);
+
+        boolean existsByEmail(String email);
+
+        List<Member> findByGroupId(Long groupId);
+
+        List<Member> findByTagsName(String name);
+
+        Member findByUsernameIgnoreCaseAndDeleted(String username, boolean deleted);
+
+        long countByDeleted(boolean deleted);
+
+        List<Member> findTop2ByDeleted(boolean deleted);
+
+        Optional<Member> findFirstByDeleted(boolean deleted);
+
+        List<Member> findAllOrderByUsername();
+    }
+
+    public static class Group {
+        private Long id;
+        private String name;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class Member {
+        private Long id;
+        private String username;
+        private String email;
+        private boolean deleted;
+        private Group group;
+        private Set<Group> tags = new HashSet<>();
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public void setEmail(String email) {
+            this.email = email;
+        }
+
+        public boolean isDeleted() {
+            return deleted;
+        }
+
+        public void setDeleted(boolean deleted) {
+            this.deleted = deleted;
+        }
+
+        public Group getGroup() {
+            return group;
+        }
+
+        public void setGroup(Group group) {
+            this.group = group;
+        }
+
+        public Set<Group> getTags() {
+            return tags;
+        }
+
+        public void setTags(Set<Group> tags) {
+            this.tags = tags;
+        }
+    }
+
+    private MemberRepository memberRepository;
+    private GroupRepository groupRepository;
+
+    @Before
+    public void setUp() {
+        InMemoryDataScope.open();
+        memberRepository = InMemoryRepositoryFactory.create(MemberRepository.class);
+        groupRepository = InMemoryRepositoryFactory.create(GroupRepository.class);
+    }
+
+    @After
+    public void tearDown() {
+        InMemoryDataScope.close();
+    }
+
+    private Member member(String username, String email, Group group) {
+        Member member = new Member();
+        member.setUsername(username);
+        member.setEmail(email);
+        member.setGroup(group);
+        return memberRepository.save(member);
+    }
+
+    private Group group(String name) {
+        Group group = new Group();
+        group.setName(name);
+        return groupRepository.save(group);
+    }
+
+    //TC01
+    @Test
+    public void save_ShouldAssignIdsAndSupportCrud() {
+        // Arrange
+        Member first = member("alice", "alice@example.com", null);
+        Member second = member("bob", "bob@example.com", null);
+
+        // Act
+        memberRepository.delete(first);
+
+        // Assert
+        assertEquals(Long.valueOf(1), first.getId());
+        assertEquals(Long.valueOf(2), second.getId());
+        assertFalse(memberRepository.findById(first.getId()).isPresent());
+        assertSame(second, memberRepository.findById(second.getId()).get());
+        assertEquals(1, memberRepository.count());
+        assertEquals(1, memberRepository.findAll().size());
+    }
+
+    //TC02
+    @Test
+    public void derivedFinders_ShouldUseCurrentValuesAfterSave() {
+        // Arrange
+        Member alice = member("alice", "alice@example.com", null);
+        assertTrue(memberRepository.findByUsername("alice").isPresent());
+
+        // Act
+        alice.setUsername("alicia");
+        memberRepository.save(alice);
+
+        // Assert
+        assertFalse(memberRepository.findByUsername("alice").isPresent());
+        assertSame(alice, memberRepository.findByUsername("alicia").get());
+        assertTrue(memberRepository.existsByEmail("alice@example.com"));
+        assertFalse(memberRepository.existsByEmail("nobody@example.com"));
+    }
+
+    //TC03
+    @Test
+    public void derivedFinders_ShouldFollowNestedAndCollectionPaths() {
+        // Arrange
+        Group staff = group("staff");
+        Group guests = group("guests");
+        Member alice = member("alice", "alice@example.com", staff);
+        Member bob = member("bob", "bob@example.com", guests);
+        bob.getTags().add(staff);
+        memberRepository.save(bob);
+
+        // Act
+        List<Member> inStaff = memberRepository.findByGroupId(staff.getId());
+        List<Member> taggedStaff = memberRepository.findByTagsName("staff");
+
+        // Assert
+        assertEquals(1, inStaff.size());
+        assertSame(alice, inStaff.get(0));
+        assertEquals(1, taggedStaff.size());
+        assertSame(bob, taggedStaff.get(0));
+    }
+
+    //TC04
+    @Test
+    public void derivedFinders_ShouldCombineCriteriaAndIgnoreCase() {
+        // Arrange
+        Member alice = member("Alice", "alice@example.com", null);
+        Member deleted = member("Bob", "bob@example.com", null);
+        deleted.setDeleted(true);
+        memberRepository.save(deleted);
+
+        // Act
+        Member found = memberRepository.findByUsernameIgnoreCaseAndDeleted("ALICE", false);
+        Member notFound = memberRepository.findByUsernameIgnoreCaseAndDeleted("bob", false);
+
+        // Assert
+        assertSame(alice, found);
+        assertNull(notFound);
+        assertEquals(1, memberRepository.countByDeleted(true));
+    }
+
+    //TC05
+    @Test(expected = UnsupportedOperationException.class)
+    public void unsupportedFinder_ShouldThrow() {
+        // Act
+        memberRepository.findAllOrderByUsername();
+    }
+
+    //TC06
+    @Test
+    public void scopes_ShouldIsolateThreads() throws Exception {
+        // Arrange
+        member("alice", "alice@example.com", null);
+        final AtomicReference<Long> otherCount = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread other = new Thread(() -> {
+            InMemoryDataScope.open();
+            try {
+                member("bob", "bob@example.com", null);
+                member("carol", "carol@example.com", null);
+                otherCount.set(memberRepository.count());
+            } finally {
+                InMemoryDataScope.close();
+                done.countDown();
+            }
+        });
+
+        // Act
+        other.start();
+        done.await();
+
+        // Assert
+        assertEquals(Long.valueOf(2), otherCount.get());
+        assertEquals(1, memberRepository.count());
+        assertFalse(memberRepository.findByUsername("bob").isPresent());
+    }
+
+    //TC07
+    @Test
+    public void deleteAll_ShouldClearRowsAndIndexes() {
+        // Arrange
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            members.add(member("user" + i, "user" + i + "@example.com", null));
+        }
+        assertTrue(memberRepository.findByUsername("user3").isPresent());
+
+        // Act
+        memberRepository.deleteAll();
+
+        // Assert
+        assertEquals(0, memberRepository.count());
+        assertFalse(memberRepository.findByUsername("user3").isPresent());
+        assertEquals(Long.valueOf(6), member("again", "again@example.com", null).getId());
+    }
+
+    //TC08
+    @Test
+    public void topAndFirstFinders_ShouldLimitResults() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            member("user" + i, "user" + i + "@example.com", null);
+        }
+
+        // Act
+        List<Member> top = memberRepository.findTop2ByDeleted(false);
+        Optional<Member> first = memberRepository.findFirstByDeleted(false);
+
+        // Assert
+        assertEquals(2, top.size());
+        assertEquals("user0", top.get(0).getUsername());
+        assertEquals("user1", top.get(1).getUsername());
+        assertEquals("user0", first.get().getUsername());
+        assertTrue(memberRepository.findTop2ByDeleted(true).isEmpty());
+    }
+}
@@ -0,0 +1,39 @@
+package com.thanhtam.backend.testsupport;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestExecutionListeners;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fast test mode for service tests: in-memory repositories, one application context shared
+ * by every class carrying this annotation, and an isolated data scope per test method.
+ *
+ * The context is only cached across classes if they declare nothing else that changes it, so
+ * put additional settings here rather than on the test class. The embedded H2 database only
+ * backs the JDBC-based components that are not under test.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:inmemory;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.warmup.enabled=false",
+        "app.scheduling.enabled=false"
+})
+@ActiveProfiles(InMemoryRepositoryConfig.PROFILE)
+@TestExecutionListeners(listeners = InMemoryIsolationListener.class,
+        mergeMode = TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS)
+public @interface InMemoryServiceTest {
+}
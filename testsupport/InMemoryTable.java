@@ -0,0 +1,267 @@
+package com.thanhtam.backend.testsupport;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rows of one entity type, keyed by id, with lazily built hash indexes per property path.
+ *
+ * An index is created the first time a finder filters on a path and is then maintained on
+ * every save and delete, so repeated {@code findByUsername}-style lookups are O(1). Paths may
+ * be nested ({@code intake.id}); collection-valued steps ({@code roles.name}) index every
+ * element. Entities are stored by reference, like a persistence context; changes made to an
+ * entity without saving it again are not reflected in the indexes.
+ */
+final class InMemoryTable {
+
+    private static final Map<Class<?>, Map<String, Method>> GETTERS = new ConcurrentHashMap<>();
+    private static final Object NULL_KEY = new Object();
+
+    private final Class<?> entityType;
+    private final Map<Long, Object> rows = new LinkedHashMap<>();
+    private final Map<String, Map<Object, Set<Long>>> indexes = new HashMap<>();
+    private final Map<String, Map<Long, Collection<Object>>> indexedValues = new HashMap<>();
+    private long sequence;
+
+    InMemoryTable(Class<?> entityType) {
+        this.entityType = entityType;
+    }
+
+    synchronized Object save(Object entity) {
+        Long id = (Long) read(entity, "id");
+        if (id == null) {
+            id = ++sequence;
+            write(entity, "id", id);
+        } else {
+            sequence = Math.max(sequence, id);
+        }
+        rows.put(id, entity);
+        for (String path : indexes.keySet()) {
+            unindex(path, id);
+            index(path, id, entity);
+        }
+        return entity;
+    }
+
+    synchronized Object findById(Long id) {
+        return id == null ? null : rows.get(id);
+    }
+
+    synchronized List<Object> findAll() {
+        return new ArrayList<>(rows.values());
+    }
+
+    synchronized int count() {
+        return rows.size();
+    }
+
+    synchronized boolean deleteById(Long id) {
+        if (id == null || rows.remove(id) == null) {
+            return false;
+        }
+        for (String path : indexes.keySet()) {
+            unindex(path, id);
+        }
+        return true;
+    }
+
+    synchronized void deleteAll() {
+        rows.clear();
+        indexes.clear();
+        indexedValues.clear();
+    }
+
+    /**
+     * Rows whose value at each path equals the given value. {@code ignoreCase} applies to
+     * string comparisons of the matching position.
+     */
+    synchronized List<Object> find(List<String> paths, List<Object> values, List<Boolean> ignoreCase) {
+        // The first criterion narrows through its index, the rest are checked on the candidates.
+        String firstKey = indexKey(paths.get(0), ignoreCase.get(0));
+        Map<Object, Set<Long>> index = indexes.get(firstKey);
+        if (index == null) {
+            index = new HashMap<>();
+            indexes.put(firstKey, index);
+            indexedValues.put(firstKey, new HashMap<>());
+            for (Map.Entry<Long, Object> row : rows.entrySet()) {
+                index(firstKey, row.getKey(), row.getValue());
+            }
+        }
+        Set<Long> candidates = index.get(normalize(values.get(0), ignoreCase.get(0)));
+        if (candidates == null) {
+            return Collections.emptyList();
+        }
+        List<Object> result = new ArrayList<>();
+        for (Long id : candidates) {
+            Object entity = rows.get(id);
+            if (matches(entity, paths, values, ignoreCase)) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
+    Class<?> getEntityType() {
+        return entityType;
+    }
+
+    private boolean matches(Object entity, List<String> paths, List<Object> values, List<Boolean> ignoreCase) {
+        for (int i = 1; i < paths.size(); i++) {
+            Object expected = normalize(values.get(i), ignoreCase.get(i));
+            boolean found = false;
+            for (Object actual : resolve(entity, paths.get(i))) {
+                if (equal(normalize(actual, ignoreCase.get(i)), expected)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void index(String key, Long id, Object entity) {
+        boolean ignoreCase = key.endsWith("#ic");
+        String path = ignoreCase ? key.substring(0, key.length() - 3) : key;
+        Collection<Object> values = new ArrayList<>();
+        for (Object value : resolve(entity, path)) {
+            values.add(normalize(value, ignoreCase));
+        }
+        for (Object value : values) {
+            indexes.get(key).computeIfAbsent(indexable(value), v -> new LinkedHashSet<>()).add(id);
+        }
+        indexedValues.get(key).put(id, values);
+    }
+
+    private void unindex(String key, Long id) {
+        Collection<Object> previous = indexedValues.get(key).remove(id);
+        if (previous == null) {
+            return;
+        }
+        Map<Object, Set<Long>> index = indexes.get(key);
+        for (Object value : previous) {
+            Set<Long> ids = index.get(indexable(value));
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    index.remove(indexable(value));
+                }
+            }
+        }
+    }
+
+    private static Object indexable(Object value) {
+        return value == null ? NULL_KEY : value;
+    }
+
+    private static String indexKey(String path, boolean ignoreCase) {
+        return ignoreCase ? path + "#ic" : path;
+    }
+
+    private static Object normalize(Object value, boolean ignoreCase) {
+        Object normalized = value instanceof Integer || value instanceof Short ? Long.valueOf(((Number) value).longValue()) : value;
+        if (ignoreCase && normalized instanceof String) {
+            return ((String) normalized).toLowerCase(Locale.ROOT);
+        }
+        return indexable(normalized);
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /** Values at a dotted path; collection steps fan out, null steps yield a single null. */
+    static Collection<Object> resolve(Object root, String path) {
+        List<Object> current = new ArrayList<>();
+        current.add(root);
+        for (String property : path.split("\\.")) {
+            List<Object> next = new ArrayList<>();
+            for (Object value : current) {
+                if (value == null) {
+                    next.add(null);
+                    continue;
+                }
+                Object child = read(value, property);
+                if (child instanceof Collection) {
+                    next.addAll((Collection<?>) child);
+                } else {
+                    next.add(child);
+                }
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    static boolean hasProperty(Class<?> type, String property) {
+        return getters(type).containsKey(property);
+    }
+
+    static Class<?> propertyType(Class<?> type, String property) {
+        Method getter = getters(type).get(property);
+        return getter == null ? null : getter.getReturnType();
+    }
+
+    static Object read(Object target, String property) {
+        Method getter = getters(target.getClass()).get(property);
+        if (getter == null) {
+            throw new IllegalArgumentException("No property " + property + " on " + target.getClass().getSimpleName());
+        }
+        try {
+            return getter.invoke(target);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Cannot read " + property, e);
+        }
+    }
+
+    private static void write(Object target, String property, Object value) {
+        String setter = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (Method method : target.getClass().getMethods()) {
+            if (method.getName().equals(setter) && method.getParameterCount() == 1) {
+                try {
+                    method.invoke(target, value);
+                    return;
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new IllegalStateException("Cannot write " + property, e);
+                }
+            }
+        }
+        throw new IllegalArgumentException("No setter for " + property + " on " + target.getClass().getSimpleName());
+    }
+
+    private static Map<String, Method> getters(Class<?> type) {
+        return GETTERS.computeIfAbsent(type, t -> {
+            Map<String, Method> getters = new HashMap<>();
+            for (Method method : t.getMethods()) {
+                if (method.getParameterCount() != 0 || method.getDeclaringClass() == Object.class) {
+                    continue;
+                }
+                String name = method.getName();
+                String property = null;
+                if (name.startsWith("get") && name.length() > 3) {
+                    property = name.substring(3);
+                } else if (name.startsWith("is") && name.length() > 2
+                        && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+                    property = name.substring(2);
+                }
+                if (property != null) {
+                    getters.put(Character.toLowerCase(property.charAt(0)) + property.substring(1), method);
+                }
+            }
+            return getters;
+        });
+    }
+}
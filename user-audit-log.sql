@@ -0,0 +1,12 @@
+CREATE TABLE IF NOT EXISTS user_audit_log (
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id    BIGINT,
+    profile_id BIGINT,
+    actor      VARCHAR(255),
+    action     VARCHAR(32)  NOT NULL,
+    field      VARCHAR(64)  NOT NULL,
+    old_value  TEXT,
+    new_value  TEXT,
+    created_at BIGINT       NOT NULL,
+    INDEX idx_user_audit_log_user_time (user_id, created_at)
+);
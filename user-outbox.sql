@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS user_outbox (
+    id              BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id         BIGINT       NOT NULL,
+    event_type      VARCHAR(64)  NOT NULL,
+    payload         TEXT,
+    status          VARCHAR(16)  NOT NULL DEFAULT 'PENDING',
+    attempts        INT          NOT NULL DEFAULT 0,
+    last_error      VARCHAR(512),
+    created_at      BIGINT       NOT NULL,
+    next_attempt_at BIGINT       NOT NULL,
+    INDEX idx_user_outbox_status_id (status, id),
+    INDEX idx_user_outbox_user_status_id (user_id, status, id)
+);